@@ -1,18 +1,32 @@
 package uk.gov.crowncommercial.dts.scale.cat.cache;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Stream;
 
+/**
+ * Declares the caches of the Caffeine cache manager. The caches of public search results are keyed
+ * by free text from anonymous requests, so they are bounded in size and age. They are evicted on
+ * each sync of the node running it only, other nodes keep serving their entries until they expire.
+ */
 @Component
-public class StaticDataCacheManager implements CacheManagerCustomizer<ConcurrentMapCacheManager> {
+public class StaticDataCacheManager implements CacheManagerCustomizer<CaffeineCacheManager> {
+
+  @Value("${config.oppertunities.search.cache.max-size: 1000}")
+  private long searchCacheMaxSize;
+
+  @Value("${config.oppertunities.search.cache.expire-after-write: PT5M}")
+  private Duration searchCacheExpiry;
 
   @Override
-  public void customize(ConcurrentMapCacheManager cacheManager) {
+  public void customize(CaffeineCacheManager cacheManager) {
 
     List<String> agreementCacheList =
         List.of(
@@ -29,10 +43,14 @@ public class StaticDataCacheManager implements CacheManagerCustomizer<Concurrent
             "findOrganisationMappingByExternalOrganisationId",
             "findOrganisationMappingByOrganisationIdIn",
             "isExternalToolIdValidForGcloud");
+    List<String> searchCacheList = List.of("getProjectSummery", "getProjectSuggestions");
 
     cacheManager.setCacheNames(
         Stream.of(agreementCacheList, conclaveServiceCacheList, dbOrgMappingCacheList)
             .flatMap(Collection::stream)
             .toList());
+    searchCacheList.forEach(name -> cacheManager.registerCustomCache(name,
+        Caffeine.newBuilder().maximumSize(searchCacheMaxSize)
+            .expireAfterWrite(searchCacheExpiry).build()));
   }
 }
@@ -25,6 +25,8 @@ public class Constants {
   public static final String ERR_MSG_FORBIDDEN = "Access to the requested resource is forbidden";
   public static final String ERR_MSG_DEFAULT = "An error occurred processing the request";
   public static final String ERR_MSG_UPSTREAM = "An error occurred invoking an upstream service";
+  public static final String ERR_MSG_UPSTREAM_TIMEOUT = "Timed out waiting for upstream services";
+  public static final String ERR_MSG_TOO_MANY_REQUESTS = "Too many requests, please try again later";
   public static final String ERR_MSG_VALIDATION = "Validation error processing the request";
   public static final String ERR_MSG_RESOURCE_NOT_FOUND = "Resource not found";
 
@@ -13,4 +13,9 @@ public class ExperimentalFlagsConfig {
     private boolean asyncMissedJobsLoader = true;
     private boolean asyncOrphanJobsLoader = true;
     private boolean asyncResumeJobsOnStartup = true;
+    private int asyncJaggaerSupplierPushConcurrency = 2;
+    private int asyncJaggaerSupplierChunkSize = 500;
+    private int asyncJaggaerSupplierChunkConcurrency = 2;
+    private String asyncTaskPayloadCodec = "smile";
+    private int asyncTaskPayloadCodecThreshold = 4096;
 }
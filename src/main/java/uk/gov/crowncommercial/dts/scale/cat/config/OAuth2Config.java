@@ -36,6 +36,11 @@ public class OAuth2Config {
 
   private static final String[] LD_AND_CAT_ROLES = ArrayUtils.addAll(CAT_ROLES, LD_ROLES);
 
+  /**
+   * Operational endpoints (task administration, metrics) are for the service team, not buyers
+   */
+  private static final String[] OPS_ROLES = new String[] {"CAT_OPERATIONS"};
+
   @Bean
   protected SecurityFilterChain configure(final HttpSecurity http) throws Exception {
 
@@ -43,6 +48,8 @@ public class OAuth2Config {
 
     http.authorizeHttpRequests(authz ->
       authz
+        // the bulk OCDS export is heavy, unlike the public project lookups matched next
+        .requestMatchers(HttpMethod.GET, "/tenders/projects/export").hasAnyAuthority(CAT_ROLES)
         .requestMatchers(HttpMethod.GET,"/tenders/projects/*").permitAll()
         .requestMatchers(HttpMethod.GET,"/tenders/projects/*/events/*/documents/export").permitAll()
         .requestMatchers("/tenders/projects/**").hasAnyAuthority(CAT_ROLES)
@@ -52,6 +59,9 @@ public class OAuth2Config {
         .requestMatchers("/assessments/**").hasAnyAuthority(CAT_ROLES)
         .requestMatchers("/tenders/users/**").hasAnyAuthority(LD_AND_CAT_ROLES)
         .requestMatchers("/tenders/orgs/**").hasAnyAuthority(LD_ROLES)
+        .requestMatchers("/admin/**").hasAnyAuthority(OPS_ROLES)
+        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+        .requestMatchers(HttpMethod.GET, "/actuator/metrics/**").hasAnyAuthority(OPS_ROLES)
         .requestMatchers("/error/**").hasAnyAuthority(
             Stream.concat(Arrays.stream(CAT_ROLES), Arrays.stream(LD_ROLES)).toArray(String[]::new))
         .anyRequest().denyAll()
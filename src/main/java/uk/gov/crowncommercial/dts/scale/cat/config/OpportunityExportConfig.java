@@ -0,0 +1,50 @@
+package uk.gov.crowncommercial.dts.scale.cat.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+/**
+ * Agreements whose published opportunities are exported to the CSV download and the search index.
+ * Each agreement is scheduled, locked and measured on its own.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "config.oppertunities.export", ignoreUnknownFields = true)
+@Data
+public class OpportunityExportConfig {
+
+  /**
+   * How many export jobs (of any agreement) may run at the same time on a node
+   */
+  private int parallelism = 4;
+
+  private List<Agreement> agreements = new ArrayList<>();
+
+  public Optional<Agreement> getAgreement(final String agreementId) {
+    return agreements.stream().filter(a -> a.getId().equalsIgnoreCase(agreementId)).findFirst();
+  }
+
+  @Data
+  public static class Agreement {
+
+    private String id;
+
+    private int publishedBatchSize = 80;
+    private int awardedBatchSize = 20;
+
+    /**
+     * S3 key of the CSV file, defaults to one per agreement under the oppertunities prefix
+     */
+    private String csvKey;
+
+    /**
+     * Cron expressions, "-" disables the job. When unset the shared schedules are used.
+     */
+    private String csvSchedule;
+    private String syncSchedule;
+    private String fullSyncSchedule;
+  }
+}
@@ -0,0 +1,24 @@
+package uk.gov.crowncommercial.dts.scale.cat.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * ETags for the public project search and its suggestions, so browsers and CDNs revalidating a
+ * cached page get a 304 instead of the results again
+ */
+@Configuration
+public class PublicSearchCacheConfig {
+
+  static final String PUBLIC_SEARCH_PATH = "/tenders/projects/search";
+  static final String PUBLIC_SUGGEST_PATH = "/tenders/projects/suggest";
+
+  @Bean
+  FilterRegistrationBean<ShallowEtagHeaderFilter> publicSearchEtagFilter() {
+    var registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+    registration.addUrlPatterns(PUBLIC_SEARCH_PATH, PUBLIC_SUGGEST_PATH);
+    return registration;
+  }
+}
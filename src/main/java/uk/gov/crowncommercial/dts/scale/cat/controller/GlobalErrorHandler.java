@@ -141,6 +141,26 @@ public class GlobalErrorHandler implements ErrorController {
         Constants.ERR_MSG_UPSTREAM, exception.getMessage());
   }
 
+  @ResponseStatus(GATEWAY_TIMEOUT)
+  @ExceptionHandler(OcdsTimeoutException.class)
+  public Errors handleOcdsTimeoutException(final OcdsTimeoutException exception) {
+
+    log.error("OCDS assembly timed out", exception);
+
+    return tendersAPIModelUtils.buildDefaultErrors(GATEWAY_TIMEOUT.toString(),
+        Constants.ERR_MSG_UPSTREAM_TIMEOUT, exception.getMessage());
+  }
+
+  @ResponseStatus(TOO_MANY_REQUESTS)
+  @ExceptionHandler(TooManyRequestsException.class)
+  public Errors handleTooManyRequestsException(final TooManyRequestsException exception) {
+
+    log.warn(exception.getMessage());
+
+    return tendersAPIModelUtils.buildDefaultErrors(TOO_MANY_REQUESTS.toString(),
+        Constants.ERR_MSG_TOO_MANY_REQUESTS, exception.getMessage());
+  }
+
   @ResponseStatus(BAD_REQUEST)
   @ExceptionHandler({ValidationException.class, HttpMessageNotReadableException.class,
       IllegalArgumentException.class, MethodArgumentNotValidException.class})
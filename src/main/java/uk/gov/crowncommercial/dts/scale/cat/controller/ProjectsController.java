@@ -2,12 +2,24 @@ package uk.gov.crowncommercial.dts.scale.cat.controller;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask.CSV_FILE_NAME;
+import static uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask.GZIP_ENCODING;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,7 +31,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -39,9 +53,12 @@ import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPublicSearchR
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.TeamMember;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.TerminationEvent;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.UpdateTeamMember;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProjectSuggestions;
 import uk.gov.crowncommercial.dts.scale.cat.service.ProcurementProjectService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsExportService;
 import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsSections;
 import uk.gov.crowncommercial.dts.scale.cat.service.ocds.ProjectPackageService;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSuggestionService;
 
 /**
  *
@@ -53,11 +70,19 @@ import uk.gov.crowncommercial.dts.scale.cat.service.ocds.ProjectPackageService;
 @Validated
 public class ProjectsController extends AbstractRestController {
 
+  private static final String NDJSON_VALUE = "application/x-ndjson";
+  private static final String GZIP_VALUE = "application/gzip";
+
   private final ProjectPackageService projectPackageService;
   private final ProcurementProjectService procurementProjectService;
+  private final ProjectSuggestionService projectSuggestionService;
+  private final OcdsExportService ocdsExportService;
 
   private final ObjectMapper mapper;
 
+  @Value("${config.oppertunities.search.max-age: PT1M}")
+  private Duration searchMaxAge;
+
   //search-type=projectName&search-term=My%20search%20term&page=1&page-size=20'
   @GetMapping(value={"", "/"})
   @TrackExecutionTime
@@ -171,25 +196,156 @@ public class ProjectsController extends AbstractRestController {
     return Constants.OK_MSG;
   }
   
+  /**
+   * Serves the oppertunities CSV with its S3 ETag and Last-Modified, so repeat downloads can be
+   * answered with a 304. Single byte ranges are fetched from S3 as ranges. A gzip encoded file is
+   * passed through as is to clients accepting gzip and inflated for the others (without ranges).
+   * The content is fetched on condition it still has the ETag the response was prepared with. If
+   * the file was replaced in between, the request is answered again from the new file (a range on
+   * a stale If-Range then gets all of it), and with a 412 if it was replaced once more.
+   */
   @GetMapping(value = "/download")
-  public void downloadFile(HttpServletResponse response) throws IOException {
-    var downloadProjectsData = procurementProjectService.downloadProjectsData();
+  public void downloadFile(
+      @RequestParam(name = "agreement-id", required = false) final String agreementId,
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (writeProjectsData(agreementId, request, response)) {
+      return;
+    }
+    log.info("Oppertunity data of {} replaced during the download, serving the new file",
+        agreementId);
+    response.reset();
+    if (!writeProjectsData(agreementId, request, response)) {
+      response.reset();
+      response.sendError(HttpStatus.PRECONDITION_FAILED.value());
+    }
+  }
+
+  /**
+   * @return false, with nothing written yet, if the file changed after its metadata was read
+   */
+  private boolean writeProjectsData(final String agreementId, final HttpServletRequest request,
+      final HttpServletResponse response) throws IOException {
+    var metadata = procurementProjectService.getProjectsDataMetadata(agreementId);
+    var gzipped = GZIP_ENCODING.equals(metadata.getContentEncoding());
+    var decompress = gzipped && !acceptsGzip(request);
+    var etag = "\"" + metadata.getETag() + (decompress ? "-identity" : "") + "\"";
+
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (new ServletWebRequest(request, response).checkNotModified(etag,
+        metadata.getLastModified().getTime())) {
+      return true;
+    }
     response.setContentType(MediaType.TEXT_PLAIN.toString());
     response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
         "attachment; filename=\"" + CSV_FILE_NAME + "\"");
-    IOUtils.copy(downloadProjectsData, response.getOutputStream());
+    if (decompress) {
+      response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+      return copyProjectsData(agreementId, metadata.getETag(), null, null, true, response);
+    }
+
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    if (gzipped) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+    }
+    var length = metadata.getContentLength();
+    var range = getRange(request, etag);
+    Long rangeStart = null;
+    Long rangeEnd = null;
+    if (range != null) {
+      try {
+        rangeStart = range.getRangeStart(length);
+        rangeEnd = range.getRangeEnd(length);
+      } catch (IllegalArgumentException e) {
+        // handled below
+      }
+      if (rangeStart == null || rangeStart > rangeEnd) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return true;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(HttpHeaders.CONTENT_RANGE,
+          "bytes " + rangeStart + "-" + rangeEnd + "/" + length);
+      response.setContentLengthLong(rangeEnd - rangeStart + 1);
+    } else {
+      response.setContentLengthLong(length);
+    }
+    return copyProjectsData(agreementId, metadata.getETag(), rangeStart, rangeEnd, false,
+        response);
+  }
+
+  private boolean copyProjectsData(final String agreementId, final String eTag,
+      final Long rangeStart, final Long rangeEnd, final boolean decompress,
+      final HttpServletResponse response) throws IOException {
+    try (var content = procurementProjectService.downloadProjectsData(agreementId, eTag,
+        rangeStart, rangeEnd, decompress)) {
+      if (content == null) {
+        return false;
+      }
+      IOUtils.copy(content, response.getOutputStream());
+    }
     response.flushBuffer();
+    return true;
+  }
+
+  /**
+   * Streams the OCDS record packages of an agreement's published projects as newline delimited
+   * JSON, optionally as a gzipped file, filtered by the date the projects were first published and
+   * the tender status of their latest published event. Written on the request thread like the
+   * CSV download, so a long export isn't cut off by the async request timeout. Answers 429 when
+   * the node is already running its maximum number of exports.
+   */
+  @GetMapping(value = "/export", produces = {NDJSON_VALUE, GZIP_VALUE})
+  public void exportProjects(
+      @RequestParam(name = "agreement-id") final String agreementId,
+      @RequestParam(name = "published-from", required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) final OffsetDateTime publishedFrom,
+      @RequestParam(name = "published-to", required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) final OffsetDateTime publishedTo,
+      @RequestParam(name = "status", required = false) final String status,
+      @RequestParam(name = "group", required = false, defaultValue = "summary") final String group,
+      @RequestParam(name = "format", required = false, defaultValue = "ndjson") final String format,
+      final JwtAuthenticationToken authentication, HttpServletResponse response)
+      throws IOException {
+    var gzip = GZIP_ENCODING.equalsIgnoreCase(format);
+    if (!gzip && !"ndjson".equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException("Unsupported export format: " + format);
+    }
+    var principal = getPrincipalFromJwt(authentication);
+    log.info("exportProjects invoked on behalf of principal: {} for agreement: {}", principal,
+        agreementId);
+    var sections = OcdsSections.getSection(group);
+    var from = null != publishedFrom ? publishedFrom.toInstant() : null;
+    var to = null != publishedTo ? publishedTo.toInstant() : null;
+
+    // reserved before anything is written, so a rejection is still an error response
+    try (var slot = ocdsExportService.reserveExport()) {
+      response.setContentType(gzip ? GZIP_VALUE : NDJSON_VALUE);
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+          "attachment; filename=\"ocds-" + agreementId + ".ndjson" + (gzip ? ".gz" : "") + "\"");
+      if (gzip) {
+        // sync flush, so each record reaches the client as it is written
+        try (var out = new GZIPOutputStream(response.getOutputStream(), true)) {
+          ocdsExportService.export(agreementId, from, to, status, sections, principal, out);
+        }
+      } else {
+        ocdsExportService.export(agreementId, from, to, status, sections, principal,
+            response.getOutputStream());
+      }
+      response.flushBuffer();
+    }
   }
 
   @SneakyThrows
   @GetMapping("/search")
   @TrackExecutionTime
-  public ProjectPublicSearchResult getProjectsSummary(@RequestParam(name = "agreement-id", required = true) final String agreementId,
+  public ResponseEntity<ProjectPublicSearchResult> getProjectsSummary(@RequestParam(name = "agreement-id", required = true) final String agreementId,
                                                    @RequestParam(name = "keyword", required = false) final String keyword,
                                                    @RequestParam(name= "lot-id", required = false) final String lotId,
                                                    @RequestParam(name = "page", defaultValue ="1", required = false) final String page,
                                                    @RequestParam(name = "page-size",  defaultValue = "20",required = false) final String pageSize,
-                                                   @RequestParam (name = "filters", required = false) final String filters) {
+                                                   @RequestParam (name = "filters", required = false) final String filters,
+                                                   @RequestParam (name = "cursor", required = false) final String cursor) {
     ProjectFilters projectFilters=null;
     int pageNo = Integer.parseInt(page);
     int size = Integer.parseInt(pageSize);
@@ -197,7 +353,55 @@ public class ProjectsController extends AbstractRestController {
       String decodedString = new String(Base64.getDecoder().decode(filters));
        projectFilters = mapper.readValue(decodedString, ProjectFilters.class);
     }
-    return procurementProjectService.getProjectSummery(keyword,lotId,
-     pageNo, size, projectFilters);
+    var result = procurementProjectService.getProjectSummery(agreementId, keyword,lotId,
+     pageNo, size, projectFilters, cursor);
+    // results only change on the next sync, the ETag comes from the PublicSearchCacheConfig filter
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(searchMaxAge).cachePublic()).body(result);
+  }
+
+  @GetMapping("/suggest")
+  @TrackExecutionTime
+  public ResponseEntity<ProjectSuggestions> getProjectSuggestions(
+      @RequestParam(name = "agreement-id", required = true) final String agreementId,
+      @RequestParam(name = "prefix", required = false) final String prefix) {
+    var suggestions = projectSuggestionService.getProjectSuggestions(agreementId, prefix);
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(searchMaxAge).cachePublic()).body(suggestions);
+  }
+
+  private static boolean acceptsGzip(final HttpServletRequest request) {
+    var acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      var params = coding.split(";");
+      if (GZIP_ENCODING.equalsIgnoreCase(params[0].trim())) {
+        // gzip;q=0 means not acceptable
+        return Arrays.stream(params).skip(1).map(String::trim)
+            .filter(param -> param.startsWith("q=")).findFirst()
+            .map(q -> NumberUtils.toDouble(q.substring(2), 1) > 0).orElse(true);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The single range requested, if any. Multiple ranges, malformed ranges and ranges on a stale
+   * If-Range get the whole file.
+   */
+  private static HttpRange getRange(final HttpServletRequest request, final String etag) {
+    var rangeHeader = request.getHeader(HttpHeaders.RANGE);
+    var ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (rangeHeader == null || ifRange != null && !ifRange.equals(etag)) {
+      return null;
+    }
+    try {
+      var ranges = HttpRange.parseRanges(rangeHeader);
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
   }
 }
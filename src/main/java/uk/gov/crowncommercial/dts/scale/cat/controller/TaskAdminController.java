@@ -0,0 +1,67 @@
+package uk.gov.crowncommercial.dts.scale.cat.controller;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import java.util.List;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.crowncommercial.dts.scale.cat.interceptors.TrackExecutionTime;
+import uk.gov.crowncommercial.dts.scale.cat.model.async.TaskSummary;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.TaskAdminService;
+
+/**
+ * Administration of the async tasks (e.g. Jaggaer supplier pushes)
+ */
+@RestController
+@RequestMapping(path = "/admin/tasks", produces = APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Slf4j
+@Validated
+public class TaskAdminController extends AbstractRestController {
+
+  private final TaskAdminService taskAdminService;
+
+  @GetMapping
+  @TrackExecutionTime
+  public List<TaskSummary> getTasks(@RequestParam(name = "record-type") final String recordType,
+      @RequestParam(name = "record-id") final String recordId,
+      final JwtAuthenticationToken authentication) {
+    var principal = getPrincipalFromJwt(authentication);
+    log.info("getTasks invoked on behalf of principal: {}", principal);
+    return taskAdminService.findTasks(recordType, recordId);
+  }
+
+  @GetMapping("/{task-id}")
+  @TrackExecutionTime
+  public TaskSummary getTask(@PathVariable("task-id") final Long taskId,
+      final JwtAuthenticationToken authentication) {
+    var principal = getPrincipalFromJwt(authentication);
+    log.info("getTask invoked on behalf of principal: {}", principal);
+    return taskAdminService.getTask(taskId);
+  }
+
+  @PutMapping("/{task-id}/requeue")
+  @TrackExecutionTime
+  public TaskSummary requeueTask(@PathVariable("task-id") final Long taskId,
+      final JwtAuthenticationToken authentication) {
+    var principal = getPrincipalFromJwt(authentication);
+    log.info("requeueTask invoked on behalf of principal: {}", principal);
+    return taskAdminService.requeue(taskId, principal);
+  }
+
+  @PutMapping("/{task-id}/abort")
+  @TrackExecutionTime
+  public TaskSummary abortTask(@PathVariable("task-id") final Long taskId,
+      final JwtAuthenticationToken authentication) {
+    var principal = getPrincipalFromJwt(authentication);
+    log.info("abortTask invoked on behalf of principal: {}", principal);
+    return taskAdminService.abort(taskId, principal);
+  }
+}
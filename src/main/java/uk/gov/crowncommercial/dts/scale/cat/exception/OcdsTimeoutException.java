@@ -0,0 +1,17 @@
+package uk.gov.crowncommercial.dts.scale.cat.exception;
+
+/**
+ * An OCDS record could not be assembled from the upstream services within its deadline
+ */
+public class OcdsTimeoutException extends RuntimeException {
+
+  /**
+   *
+   */
+  private static final long serialVersionUID = 1L;
+
+  public OcdsTimeoutException(final String msg) {
+    super(msg);
+  }
+
+}
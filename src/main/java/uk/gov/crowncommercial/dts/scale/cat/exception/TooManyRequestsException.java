@@ -0,0 +1,18 @@
+package uk.gov.crowncommercial.dts.scale.cat.exception;
+
+/**
+ * The node is already serving as many requests of this kind as it allows, the client should retry
+ * later
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+  /**
+   *
+   */
+  private static final long serialVersionUID = 1L;
+
+  public TooManyRequestsException(final String msg) {
+    super(msg);
+  }
+
+}
@@ -0,0 +1,22 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.async;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Admin view of one execution of an async task
+ */
+@Value
+@Builder
+public class TaskAttempt {
+
+    Long id;
+    Integer attempt;
+    String status;
+    String node;
+    Instant scheduledOn;
+    Instant executedOn;
+    String response;
+}
@@ -0,0 +1,34 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.async;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Admin view of a persisted async task
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskSummary {
+
+    Long id;
+    String name;
+    String recordType;
+    String recordId;
+    String taskExecutor;
+    String principal;
+    String status;
+    String priority;
+    Integer attempts;
+    String node;
+    boolean inFlight;
+    Instant scheduledOn;
+    Instant tobeExecutedAt;
+    Instant lastExecutedOn;
+    String response;
+    List<TaskAttempt> history;
+}
@@ -0,0 +1,36 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.entity;
+
+import java.time.Instant;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * An assembled OCDS project package for a set of sections. It can be served again as long as the
+ * project has not changed in the DB since (change marker) and its Jaggaer status is final.
+ */
+@Entity
+@Table(name = "ocds_record_snapshot")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OcdsRecordSnapshot {
+
+  @EmbeddedId
+  OcdsRecordSnapshotKey key;
+
+  @Column(name = "change_marker")
+  Instant changeMarker;
+
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "project_package")
+  String projectPackage;
+
+  @Column(name = "created_at")
+  Instant createdAt;
+
+}
@@ -0,0 +1,33 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.entity;
+
+import java.io.Serializable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compound Key.
+ */
+@Data
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+public class OcdsRecordSnapshotKey implements Serializable {
+
+  /**
+   *
+   */
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "project_id")
+  private Integer projectId;
+
+  /**
+   * The requested sections, sorted and comma separated
+   */
+  @Column(name = "sections")
+  private String sections;
+
+}
@@ -0,0 +1,40 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.entity;
+
+import java.time.Instant;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A project's rendered row of the oppertunities CSV. It can be reused by the next CSV run as long as
+ * the project has not changed in the DB since (change marker) and its Jaggaer status is final.
+ */
+@Entity
+@Table(name = "opportunity_csv_row")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OpportunityCsvRow {
+
+  @Id
+  @Column(name = "project_id")
+  Integer projectId;
+
+  @Column(name = "agreement_id")
+  String agreementId;
+
+  @Column(name = "change_marker")
+  Instant changeMarker;
+
+  @Column(name = "final_status")
+  boolean finalStatus;
+
+  @Column(name = "row_data")
+  String rowData;
+
+  @Column(name = "updated_at")
+  Instant updatedAt;
+
+}
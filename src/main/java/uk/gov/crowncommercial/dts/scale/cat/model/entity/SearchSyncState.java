@@ -0,0 +1,34 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.entity;
+
+import java.time.Instant;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Progress marker for a search index sync. The watermark is the instant the last successful sync
+ * started, so the next incremental run only has to pick up changes made after it.
+ */
+@Entity
+@Table(name = "search_sync_state")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SearchSyncState {
+
+  @Id
+  @Column(name = "sync_name")
+  String name;
+
+  @Column(name = "watermark")
+  Instant watermark;
+
+  @Column(name = "last_full_sync_at")
+  Instant lastFullSyncAt;
+
+  @Column(name = "updated_at")
+  Instant updatedAt;
+
+}
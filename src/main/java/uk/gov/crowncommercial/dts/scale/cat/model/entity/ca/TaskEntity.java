@@ -3,6 +3,7 @@ package uk.gov.crowncommercial.dts.scale.cat.model.entity.ca;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.Timestamps;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
 
 import jakarta.persistence.*;
 import java.time.Instant;
@@ -12,7 +13,7 @@ import java.util.List;
 *
 */
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", uniqueConstraints = @UniqueConstraint(name = "tasks_task_name_uk", columnNames = "task_name"))
 @Setter
 @Getter
 @AllArgsConstructor
@@ -41,6 +42,10 @@ public class TaskEntity {
   @Column(name = "taskExecutor")
   private String taskExecutor;
 
+  @Enumerated(EnumType.STRING)
+  @Column(name = "task_priority")
+  private TaskPriority priority;
+
   @Column(name = "task_data_type")
   private String dataClass;
 
@@ -59,6 +64,18 @@ public class TaskEntity {
   @Column(name = "task_status")
   private char status;
 
+  /**
+   * Attempts made since the task was last submitted or re-queued, null on rows from before retries
+   */
+  @Column(name = "task_attempts")
+  private Integer attempts;
+
+  /**
+   * The task was submitted again while it was running, so it runs once more with the latest data
+   */
+  @Column(name = "rerun_requested")
+  private Boolean rerunRequested;
+
   @Column(name = "task_node")
   private String node;
 
@@ -38,6 +38,12 @@ public class TaskHistoryEntity {
   @Column(name = "task_history_status")
   private char status;
 
+  /**
+   * The task's attempt this entry records, 1 based
+   */
+  @Column(name = "task_attempt")
+  private Integer attempt;
+
   @Column(name = "task_node")
   private String node;
 
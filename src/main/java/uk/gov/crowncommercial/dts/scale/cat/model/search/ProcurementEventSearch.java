@@ -16,7 +16,9 @@ import java.time.Instant;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Document(indexName = "procurement_event")
+// indexes are created with their mapping by ProjectSearchIndexService, which also lets the service
+// start while OpenSearch is down
+@Document(indexName = "procurement_event", createIndex = false)
 public class ProcurementEventSearch {
   
     @Id
@@ -33,6 +35,8 @@ public class ProcurementEventSearch {
     String budgetRange;
     @JsonProperty("agreement")
     String agreement;
+    @JsonProperty("agreementId")
+    String agreementId;
     @JsonProperty("lot")
     String lot;
     @JsonProperty("lotDescription")
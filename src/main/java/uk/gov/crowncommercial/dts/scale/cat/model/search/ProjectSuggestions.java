@@ -0,0 +1,21 @@
+package uk.gov.crowncommercial.dts.scale.cat.model.search;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Type-ahead suggestions for the public project search, distinct values of each field starting
+ * with (a word starting with) the prefix
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectSuggestions {
+
+  private String prefix;
+  private List<String> projectNames;
+  private List<String> buyerNames;
+  private List<String> locations;
+}
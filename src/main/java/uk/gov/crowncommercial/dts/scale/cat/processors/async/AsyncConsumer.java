@@ -15,7 +15,55 @@ public interface AsyncConsumer<T> {
         return false;
     }
 
+    /**
+     * Called once a task has finished and will not be executed again
+     * @param succeeded false if the task failed or ran out of attempts
+     */
+    default void onFinished(String principal, T data, boolean succeeded){
+    }
+
     String getIdentifier(T data);
 
     String getTaskName();
+
+    /**
+     * Lane in which the tasks of this consumer are dispatched
+     * @return priority of the tasks
+     */
+    default TaskPriority getPriority(){
+        return TaskPriority.NORMAL;
+    }
+
+    /**
+     * Maximum number of tasks of this consumer executing at the same time on a node
+     * @return concurrency limit, 0 or less for no limit
+     */
+    default int getMaxConcurrency(){
+        return 0;
+    }
+
+    /**
+     * Maximum number of tasks of this consumer started per second on a node
+     * @return rate limit, 0 or less for no limit
+     */
+    default double getMaxExecutionsPerSecond(){
+        return 0;
+    }
+
+    /**
+     * Maximum number of executions of a task, including the first one, when it keeps failing with a
+     * {@link RetryableException} accepted by {@link #canRetry(String, RetryableException)}
+     * @return max attempts, 0 or less to retry until the task succeeds
+     */
+    default int getMaxAttempts(){
+        return 0;
+    }
+
+    /**
+     * Delay between the attempts of a retried task
+     * @return backoff policy
+     */
+    default RetryBackoff getRetryBackoff(){
+        return RetryBackoff.DEFAULT;
+    }
 }
@@ -0,0 +1,49 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for retrying async tasks. The delay before attempt n+1 is
+ * initialDelay * multiplier^(n-1), capped at maxDelay, of which a random half is taken off so that
+ * tasks failing together do not retry together.
+ */
+public class RetryBackoff {
+    public static final RetryBackoff DEFAULT = new RetryBackoff(Duration.ofSeconds(30), 2, Duration.ofMinutes(30));
+
+    private final Duration initialDelay;
+    private final double multiplier;
+    private final Duration maxDelay;
+
+    public RetryBackoff(Duration initialDelay, double multiplier, Duration maxDelay) {
+        if (initialDelay.isNegative() || multiplier < 1 || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("Invalid retry backoff " + initialDelay + ", " + multiplier + ", " + maxDelay);
+        }
+        this.initialDelay = initialDelay;
+        this.multiplier = multiplier;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @param attempt the attempt which just failed, starting at 1
+     * @return delay before the next attempt
+     */
+    public Duration getDelay(int attempt) {
+        double delay = initialDelay.toMillis() * Math.pow(multiplier, Math.max(0, attempt - 1));
+        long capped = (long) Math.min(delay, maxDelay.toMillis());
+        long half = capped / 2;
+        return Duration.ofMillis(capped - half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async;
+
+/**
+ * Dispatch lane of an async task. Tasks in a higher lane are always taken off the executor queue
+ * before tasks in a lower lane, tasks within the same lane are executed in submission order.
+ */
+public enum TaskPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
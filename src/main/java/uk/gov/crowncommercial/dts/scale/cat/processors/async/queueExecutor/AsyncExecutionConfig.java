@@ -4,12 +4,21 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.BlockingQueue;
+
 @Configuration
 public class AsyncExecutionConfig {
 
     @Bean("comExecutor")
     public ThreadPoolTaskExecutor getJaggaerExecutor(){
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+                // Tasks are dispatched by priority lane, see RunnableTask.DISPATCH_ORDER. The queue is
+                // bounded, so a full queue still blocks the submitter (BlockCallerExecutionPolicy)
+                return new BoundedPriorityBlockingQueue<>(queueCapacity, RunnableTask.DISPATCH_ORDER);
+            }
+        };
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(4);
         executor.setThreadGroupName("JGR");
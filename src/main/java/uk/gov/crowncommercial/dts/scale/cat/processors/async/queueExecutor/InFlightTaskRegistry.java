@@ -0,0 +1,41 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of the tasks held by this node, from the moment they are handed to the executor queue until
+ * their execution finishes. Used to keep the reload sweeps from dispatching the same task twice.
+ */
+@Component
+public class InFlightTaskRegistry {
+    private final Set<Long> taskIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Claims the task for dispatch on this node
+     * @param taskId
+     * @return false if the task is already queued or running on this node
+     */
+    public boolean register(Long taskId) {
+        if (null == taskId) {
+            return true;
+        }
+        return taskIds.add(taskId);
+    }
+
+    public void deregister(Long taskId) {
+        if (null != taskId) {
+            taskIds.remove(taskId);
+        }
+    }
+
+    public boolean isInFlight(Long taskId) {
+        return null != taskId && taskIds.contains(taskId);
+    }
+
+    public int size() {
+        return taskIds.size();
+    }
+}
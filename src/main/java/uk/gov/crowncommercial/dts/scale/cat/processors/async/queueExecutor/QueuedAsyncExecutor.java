@@ -1,23 +1,23 @@
 package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import uk.gov.crowncommercial.dts.scale.cat.config.ApplicationFlagsConfig;
 import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
 import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
 import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncExecutor;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec.TaskPayloadCodecs;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 @Component
 @Slf4j
@@ -28,20 +28,20 @@ public class QueuedAsyncExecutor implements AsyncExecutor {
     private final ApplicationFlagsConfig applicationFlags;
     private final ExperimentalFlagsConfig experimentalFlags;
     private final TaskEntityService taskEntityService;
-    private final BlockingQueue<Runnable> queue;
+    private final InFlightTaskRegistry inFlightTasks;
+    private final TaskPayloadCodecs payloadCodecs;
     private final ArrayBlockingQueue<Task> task = new ArrayBlockingQueue<>(128);
 
-    private final ObjectMapper mapper = new ObjectMapper();
-
     public QueuedAsyncExecutor(@Qualifier("comExecutor") ThreadPoolTaskExecutor executor, ApplicationContext ctx,
-                               ApplicationFlagsConfig applicationFlags, ExperimentalFlagsConfig flags, TaskEntityService taskEntityService) {
+                               ApplicationFlagsConfig applicationFlags, ExperimentalFlagsConfig flags, TaskEntityService taskEntityService,
+                               InFlightTaskRegistry inFlightTasks, TaskPayloadCodecs payloadCodecs) {
         this.taskExecutor = executor;
-        queue = executor.getThreadPoolExecutor().getQueue();
+        this.inFlightTasks = inFlightTasks;
         this.ctx = ctx;
         this.experimentalFlags = flags;
         this.applicationFlags = applicationFlags;
         this.taskEntityService = taskEntityService;
-        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        this.payloadCodecs = payloadCodecs;
     }
 
     public void startup() {
@@ -59,33 +59,47 @@ public class QueuedAsyncExecutor implements AsyncExecutor {
     public <T> void submit(String principal, Class<? extends AsyncConsumer<T>> clazz, T data, String recordType, String recordId) {
         if (experimentalFlags.isAsyncExecutorEnabled()) {
             Task task = new Task(principal, getSpringName(clazz), getClassName(data), data);
-            taskEntityService.persist(principal, task, recordType, recordId, writeData(task.getData()));
-            schedule(task);
+            task.setPriority(ctx.getBean(clazz).getPriority());
+            boolean scheduled;
+            try {
+                scheduled = taskEntityService.persist(principal, task, recordType, recordId, payloadCodecs.encode(task.getData()));
+            } catch (DataIntegrityViolationException dive) {
+                log.info("Task {} for {} {} is already submitted", task.getRunner(), recordType, recordId);
+                return;
+            }
+            if (scheduled) {
+                scheduleAfterCommit(task);
+            } else {
+                log.info("Task {} for {} {} is already pending, not resubmitted", task.getRunner(), recordType, recordId);
+            }
         } else {
             execute(principal, clazz, data);
         }
     }
 
-    public void loadFromDataStore(List<TaskEntity> taskEntities) {
+    /**
+     * Dispatches the persisted tasks which are not already in flight on this node
+     * @return number of tasks dispatched
+     */
+    public int loadFromDataStore(List<TaskEntity> taskEntities) {
+        int dispatched = 0;
         for (TaskEntity taskEntity : taskEntities) {
-            Task task = getTask(taskEntity);
-            RunnableTask runnableTask = new RunnableTask(task, ctx);
-            if (!inFlight(runnableTask)) {
-                taskExecutor.execute(runnableTask);
+            if (inFlightTasks.isInFlight(taskEntity.getId())) {
+                continue;
+            }
+            if (dispatch(getTask(taskEntity))) {
+                dispatched++;
             }
         }
+        return dispatched;
     }
 
-    private boolean inFlight(RunnableTask runnableTask) {
-        return queue.contains(runnableTask);
-    }
-
-    @SneakyThrows
     private Task getTask(TaskEntity entity) {
-        Object data = getData(entity.getData(), Class.forName(entity.getDataClass()));
+        Object data = payloadCodecs.decode(entity.getData(), entity.getDataClass());
         Task task = new Task(entity.getPrincipal(),
                 entity.getTaskExecutor(), entity.getDataClass(), data);
         task.setId(entity.getId());
+        task.setPriority(entity.getPriority());
         return task;
     }
 
@@ -98,28 +112,54 @@ public class QueuedAsyncExecutor implements AsyncExecutor {
         runnableTask.execute();
     }
 
-    @SneakyThrows
-    private void schedule(Task task) {
-        RunnableTask runnableTask = new RunnableTask(task, ctx);
-        taskExecutor.execute(runnableTask);
+    /**
+     * The task data usually refers to rows written by the submitting transaction, so the task is only
+     * handed to the executor once that transaction commits and aborted if it rolls back.
+     */
+    private void scheduleAfterCommit(Task task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(task);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(task);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (STATUS_ROLLED_BACK == status) {
+                    log.info("Submitting transaction rolled back, aborting task {}", task.getId());
+                    taskEntityService.markAborted(task, "Aborted. Submitting transaction rolled back");
+                }
+            }
+        });
     }
 
-    private String writeData(Object data) {
-        try {
-            return mapper.writeValueAsString(data);
-        } catch (JsonProcessingException jpe) {
-            log.error("Error while serializing", jpe);
-            throw new IllegalArgumentException("Data cannot be serialized into json", jpe);
+    private void schedule(Task task) {
+        if (!dispatch(task)) {
+            log.debug("Task {} is already in flight", task.getId());
         }
     }
 
-    private <D> D getData(String data, Class<D> clazz) throws JsonProcessingException {
+    /**
+     * Hands a persisted task to the executor
+     * @param task
+     * @return false if the task is already queued or running on this node
+     */
+    boolean dispatch(Task task) {
+        if (!inFlightTasks.register(task.getId())) {
+            return false;
+        }
+        RunnableTask runnableTask = new RunnableTask(task, ctx);
         try {
-            return mapper.readValue(data, clazz);
-        } catch (JsonProcessingException jpe) {
-            log.error("Error while De-Serializing " + data, jpe);
-            throw new IllegalArgumentException("Data cannot be de-serialized into json", jpe);
+            taskExecutor.execute(runnableTask);
+        } catch (RejectedExecutionException ree) {
+            inFlightTasks.deregister(task.getId());
+            throw ree;
         }
+        return true;
     }
 
     public <T> String getSpringName(Class<? extends AsyncConsumer> clazz) {
@@ -3,17 +3,41 @@ package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationContext;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RequiredArgsConstructor
 @Slf4j
 public class RunnableTask implements Runnable {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Order in which the queued runnables are handed to the workers, by priority lane and then by submission order
+     */
+    public static final Comparator<Runnable> DISPATCH_ORDER = Comparator
+            .comparing(RunnableTask::getPriority)
+            .thenComparingLong(RunnableTask::getSequence);
+
     private final Task task;
     private final ApplicationContext ctx;
+    private final long sequence = SEQUENCE.incrementAndGet();
 
     @Override
     public void run() {
-        TaskRunner runner = ctx.getBean(TaskRunner.class);
-        runner.runTask(task);
+        TaskThrottle throttle = ctx.getBean(TaskThrottle.class);
+        if (!throttle.tryAcquire(task)) {
+            throttle.defer(this);
+            return;
+        }
+        try {
+            TaskRunner runner = ctx.getBean(TaskRunner.class);
+            runner.runTask(task);
+        } finally {
+            throttle.release(task);
+            ctx.getBean(InFlightTaskRegistry.class).deregister(task.getId());
+        }
     }
 
     public void execute() {
@@ -21,8 +45,29 @@ public class RunnableTask implements Runnable {
         runner.execute(task);
     }
 
+    Task getTask() {
+        return task;
+    }
+
+    private static TaskPriority getPriority(Runnable runnable) {
+        if (runnable instanceof RunnableTask runnableTask) {
+            return runnableTask.task.getPriority();
+        }
+        return TaskPriority.NORMAL;
+    }
+
+    private static long getSequence(Runnable runnable) {
+        if (runnable instanceof RunnableTask runnableTask) {
+            return runnableTask.sequence;
+        }
+        return 0;
+    }
+
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if(null != obj && obj instanceof RunnableTask){
             RunnableTask cmp = (RunnableTask) obj;
             if(null == task.getId() || null == cmp.task.getId()){
@@ -36,6 +81,7 @@ public class RunnableTask implements Runnable {
 
     @Override
     public int hashCode() {
-        return task.hashCode();
+        // consistent with equals, un-persisted tasks are only equal to themselves
+        return null == task.getId() ? System.identityHashCode(this) : task.getId().hashCode();
     }
 }
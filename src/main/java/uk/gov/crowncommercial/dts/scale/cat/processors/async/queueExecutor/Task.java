@@ -2,6 +2,7 @@ package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
 
 import lombok.Getter;
 import lombok.Setter;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
 
 @Getter
 @Setter
@@ -16,6 +17,7 @@ public class Task {
     private final String className;
     private Object data;
 
+    private TaskPriority priority = TaskPriority.NORMAL;
 
     private Long id;
 
@@ -33,4 +35,8 @@ public class Task {
     void setId (Long id){
         this.id = id;
     }
+
+    void setPriority(TaskPriority priority){
+        this.priority = null != priority ? priority : TaskPriority.NORMAL;
+    }
 }
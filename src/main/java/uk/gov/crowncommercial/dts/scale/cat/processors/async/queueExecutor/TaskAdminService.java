@@ -0,0 +1,102 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.crowncommercial.dts.scale.cat.exception.DataConflictException;
+import uk.gov.crowncommercial.dts.scale.cat.exception.ResourceNotFoundException;
+import uk.gov.crowncommercial.dts.scale.cat.model.async.TaskAttempt;
+import uk.gov.crowncommercial.dts.scale.cat.model.async.TaskSummary;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskHistoryEntity;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+import java.util.List;
+
+/**
+ * Inspection and manual intervention on the persisted async tasks
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TaskAdminService {
+    private final TaskRepo taskRepo;
+    private final TaskEntityService taskEntityService;
+    private final QueuedAsyncExecutor asyncExecutor;
+    private final InFlightTaskRegistry inFlightTasks;
+    private final TaskRetryScheduler retryScheduler;
+
+    @Transactional(readOnly = true)
+    public List<TaskSummary> findTasks(String recordType, String recordId) {
+        return taskRepo.findByRecordTypeAndRecordIdOrderByIdDesc(recordType, recordId).stream()
+                .map(entity -> toSummary(entity, false)).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public TaskSummary getTask(Long taskId) {
+        return toSummary(findEntity(taskId), true);
+    }
+
+    /**
+     * Schedules the task again on this node with a fresh attempt count, e.g. once the cause of its failure is fixed.
+     * A retry waiting for its backoff is replaced; retries pending on other nodes are dropped when they fire, as the
+     * re-queue resets the attempt count they were scheduled with.
+     */
+    public TaskSummary requeue(Long taskId, String principal) {
+        TaskEntity current = findEntity(taskId);
+        if (inFlightTasks.isInFlight(taskId) || Task.INFLIGHT == current.getStatus()) {
+            throw new DataConflictException("Task " + taskId + " is already queued or running");
+        }
+        if (retryScheduler.cancel(taskId)) {
+            log.info("Pending retry of task {} cancelled by re-queue", taskId);
+        }
+        TaskEntity entity = taskEntityService.markRequeued(current.getId(), principal);
+        log.info("Task {} re-queued by {}", taskId, principal);
+        asyncExecutor.loadFromDataStore(List.of(entity));
+        return toSummary(entity, false);
+    }
+
+    /**
+     * Stops the task from being executed again. An execution already running is left to finish, but the task stays
+     * aborted: it is neither retried nor re-run.
+     */
+    public TaskSummary abort(Long taskId, String principal) {
+        TaskEntity entity = findEntity(taskId);
+        switch (entity.getStatus()) {
+            case Task.COMPLETED:
+            case Task.FAILED:
+            case Task.ABORTED:
+                throw new DataConflictException("Task " + taskId + " is already finished");
+        }
+        entity = taskEntityService.markAborted(taskId, principal);
+        log.info("Task {} aborted by {}", taskId, principal);
+        return toSummary(entity, false);
+    }
+
+    private TaskEntity findEntity(Long taskId) {
+        return taskRepo.findById(taskId)
+                .orElseThrow(() -> new ResourceNotFoundException("Task " + taskId + " not found"));
+    }
+
+    private TaskSummary toSummary(TaskEntity entity, boolean withHistory) {
+        return TaskSummary.builder().id(entity.getId()).name(entity.getName())
+                .recordType(entity.getRecordType()).recordId(entity.getRecordId())
+                .taskExecutor(entity.getTaskExecutor()).principal(entity.getPrincipal())
+                .status(String.valueOf(entity.getStatus()))
+                .priority(null != entity.getPriority() ? entity.getPriority().name() : null)
+                .attempts(entity.getAttempts()).node(entity.getNode())
+                .inFlight(inFlightTasks.isInFlight(entity.getId()))
+                .scheduledOn(entity.getScheduledOn()).tobeExecutedAt(entity.getTobeExecutedAt())
+                .lastExecutedOn(entity.getLastExecutedOn()).response(entity.getResponse())
+                .history(withHistory ? entity.getHistory().stream().map(this::toAttempt).toList() : null)
+                .build();
+    }
+
+    private TaskAttempt toAttempt(TaskHistoryEntity history) {
+        return TaskAttempt.builder().id(history.getId()).attempt(history.getAttempt())
+                .status(String.valueOf(history.getStatus())).node(history.getNode())
+                .scheduledOn(history.getScheduledOn()).executedOn(history.getExecutedOn())
+                .response(history.getResponse()).build();
+    }
+}
@@ -23,6 +23,7 @@ public class TaskDataStoreRefresher {
     private final QueuedAsyncExecutor asyncExecutor;
     private final ExperimentalFlagsConfig experimentalFlags;
     private final EnvironmentConfig environmentConfig;
+    private final TaskMetrics metrics;
     private final int WAIT_TIME_MINUTES = 10;
 
     @Scheduled(fixedDelay = WAIT_TIME_MINUTES * 2 * 60 * 1000, initialDelay = WAIT_TIME_MINUTES * 60 * 1000)
@@ -35,7 +36,7 @@ public class TaskDataStoreRefresher {
         List<TaskEntity> orphanTasks = taskRepo.findOrphanTasks(environmentConfig.getServiceInstance(), status, checkTime, checkTime);
         if(orphanTasks.size() > 0) {
             log.info("Retrieved {} orphan tasks from the database ", orphanTasks.size());
-            asyncExecutor.loadFromDataStore(orphanTasks);
+            metrics.incrementReloaded("orphan", asyncExecutor.loadFromDataStore(orphanTasks));
         }else{
             log.trace("No orphan tasks loaded from the database");
         }
@@ -52,7 +53,7 @@ public class TaskDataStoreRefresher {
         List<TaskEntity> taskEntities = taskRepo.findByNodeAndStatusIn(environmentConfig.getServiceInstance(), status, checkTime, checkTime);
         if (taskEntities.size() > 0) {
             log.info("Retrieved {}  tasks from the database ", taskEntities.size());
-            asyncExecutor.loadFromDataStore(taskEntities);
+            metrics.incrementReloaded("missed", asyncExecutor.loadFromDataStore(taskEntities));
         }else{
             log.trace("No pending tasks loaded from the database");
         }
@@ -67,7 +68,7 @@ public class TaskDataStoreRefresher {
         List<TaskEntity> taskEntities = taskRepo.findByNodeAndStatusIn(environmentConfig.getServiceInstance(), status, checkTime, checkTime);
         if (taskEntities.size() > 0) {
             log.info("loading {} pending tasks from the database ", taskEntities.size());
-            asyncExecutor.loadFromDataStore(taskEntities);
+            metrics.incrementReloaded("startup", asyncExecutor.loadFromDataStore(taskEntities));
         } else
             log.info("No pending tasks from the database");
 
@@ -8,6 +8,7 @@ import uk.gov.crowncommercial.dts.scale.cat.config.EnvironmentConfig;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.Timestamps;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskHistoryEntity;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskHistoryRepo;
 import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
 
 import java.time.Instant;
@@ -16,27 +17,60 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class TaskEntityService {
+    static final int NOT_RETRIED = -1;
+
     private final TaskRepo taskRepo;
+    private final TaskHistoryRepo taskHistoryRepo;
     private final EnvironmentConfig environmentConfig;
 
+    /**
+     * Persists the task, a task name is unique so a re-submission reuses the existing row. A pending
+     * task takes the new data. A running task is run once more with it when it finishes.
+     * @return true if the task needs to be scheduled, false if the same task is already pending
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void persist(String principal, Task task, String recordType, String recordId, String data) {
-        TaskEntity entity = new TaskEntity();
-        entity.setName(recordType + recordId + task.getRunner());
+    public boolean persist(String principal, Task task, String recordType, String recordId, String data) {
+        String name = recordType + recordId + task.getRunner();
+        TaskEntity entity = taskRepo.findByNameOrderByIdDesc(name).stream().findFirst().orElse(null);
+        if (null != entity) {
+            switch (entity.getStatus()) {
+                case Task.INFLIGHT:
+                    entity.setRerunRequested(true);
+                    // fall through
+                case Task.SCHEDULED:
+                    entity.setPrincipal(principal);
+                    entity.setData(data);
+                    entity.setDataClass(task.getClassName());
+                    update(entity);
+                    taskRepo.save(entity);
+                    task.setId(entity.getId());
+                    return false;
+            }
+        } else {
+            entity = new TaskEntity();
+            entity.setName(name);
+            entity.setTimestamps(Timestamps.createTimestamps(principal));
+        }
         entity.setPrincipal(principal);
         entity.setData(data);
         entity.setDataClass(task.getClassName());
         entity.setTaskExecutor(task.getRunner());
+        entity.setPriority(task.getPriority());
         Instant instant = Instant.now();
         entity.setTobeExecutedAt(instant);
         entity.setScheduledOn(instant);
+        entity.setAttempts(0);
+        entity.setRerunRequested(false);
         entity.setRecordType(recordType);
         entity.setRecordId(recordId);
         entity.setStatus(Task.SCHEDULED);
         entity.setNode(environmentConfig.getServiceInstance());
-        entity.setTimestamps(Timestamps.createTimestamps(principal));
+        if (null != entity.getId()) {
+            update(entity);
+        }
         taskRepo.save(entity);
         task.setId(entity.getId());
+        return true;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -44,6 +78,7 @@ public class TaskEntityService {
         TaskEntity entity = getEntity(task);
         checkProceed(entity);
         markHistoryAborted(entity);
+        entity.setAttempts(getAttempts(entity) + 1);
         addHistory(entity);
         entity.setStatus(Task.INFLIGHT);
         entity.setLastExecutedOn(Instant.now());
@@ -60,34 +95,167 @@ public class TaskEntityService {
         }
     }
 
+    /**
+     * @return true if the task was re-submitted while running and is scheduled again
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void markComplete(Task task, String response) {
+    public boolean markComplete(Task task, String response) {
+        return markFinished(task, Task.COMPLETED, response);
+    }
+
+    /**
+     * @return true if the task was re-submitted while running and is scheduled again
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean markFailure(Task task, String response) {
+        return markFinished(task, Task.FAILED, response);
+    }
+
+    private boolean markFinished(Task task, char status, String response) {
         TaskEntity entity = getEntity(task);
-        entity.setResponse(response);
-        entity.setStatus(Task.COMPLETED);
+        // an abort while running stands, the outcome is only kept in the history
+        boolean aborted = Task.ABORTED == entity.getStatus();
+        boolean rerun = !aborted && isRerunRequested(entity);
+        if (aborted) {
+            entity.setRerunRequested(false);
+        } else if (rerun) {
+            entity.setResponse(response);
+            entity.setRerunRequested(false);
+            entity.setStatus(Task.SCHEDULED);
+            entity.setAttempts(0);
+            entity.setTobeExecutedAt(Instant.now());
+        } else {
+            entity.setResponse(response);
+            entity.setStatus(status);
+        }
         update(entity);
-        updateHistory(entity, entity.getStatus(), response);
+        updateHistory(entity, status, response);
         taskRepo.save(entity);
+        return rerun;
     }
 
+    /**
+     * @return the attempt count the retry is scheduled with, or {@link #NOT_RETRIED} if the task was aborted while
+     * running
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void markFailure(Task task, String response) {
+    public int markRetry(Task task, String response, Instant nextAttemptAt) {
         TaskEntity entity = getEntity(task);
+        if (Task.ABORTED == entity.getStatus()) {
+            entity.setRerunRequested(false);
+            update(entity);
+            updateHistory(entity, Task.FAILED, response);
+            taskRepo.save(entity);
+            return NOT_RETRIED;
+        }
         entity.setResponse(response);
-        entity.setStatus(Task.FAILED);
+        entity.setStatus(Task.SCHEDULED);
+        entity.setTobeExecutedAt(nextAttemptAt);
+        if (isRerunRequested(entity)) {
+            // the retry runs with the newer data, as a fresh run
+            entity.setRerunRequested(false);
+            entity.setAttempts(0);
+        }
         update(entity);
-        updateHistory(entity, entity.getStatus(), response);
+        updateHistory(entity, Task.FAILED, response);
         taskRepo.save(entity);
+        return getAttempts(entity);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void markRetry(Task task, String response) {
+    public void markAborted(Task task, String response) {
         TaskEntity entity = getEntity(task);
+        if (null == entity)
+            return;
         entity.setResponse(response);
+        entity.setStatus(Task.ABORTED);
+        update(entity);
+        taskRepo.save(entity);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public TaskEntity markRequeued(Long taskId, String principal) {
+        TaskEntity entity = taskRepo.findById(taskId).orElseThrow();
         entity.setStatus(Task.SCHEDULED);
+        entity.setAttempts(0);
+        entity.setTobeExecutedAt(Instant.now());
+        entity.setNode(environmentConfig.getServiceInstance());
+        entity.setResponse("Re-queued by " + principal);
+        Timestamps.updateTimestamps(entity.getTimestamps(), principal);
+        return taskRepo.save(entity);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public TaskEntity markAborted(Long taskId, String principal) {
+        TaskEntity entity = taskRepo.findById(taskId).orElseThrow();
+        entity.setStatus(Task.ABORTED);
+        entity.setResponse("Aborted by " + principal);
+        Timestamps.updateTimestamps(entity.getTimestamps(), principal);
+        return taskRepo.save(entity);
+    }
+
+    /**
+     * Aborts the scheduled and running tasks of the runner submitted for the records whose id starts with the
+     * prefix. A running execution is left to finish, a pending retry is dropped.
+     * @return number of tasks aborted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int abortUnfinished(String runner, String recordType, String recordIdPrefix, String response) {
+        int aborted = 0;
+        for (TaskEntity task : taskRepo.findByTaskExecutorAndRecordTypeAndRecordIdStartingWith(runner, recordType,
+                recordIdPrefix)) {
+            TaskEntity entity = taskRepo.findForUpdateById(task.getId()).orElse(null);
+            if (null != entity && (Task.SCHEDULED == entity.getStatus() || Task.INFLIGHT == entity.getStatus())) {
+                entity.setStatus(Task.ABORTED);
+                entity.setRerunRequested(false);
+                entity.setResponse(response);
+                update(entity);
+                taskRepo.save(entity);
+                aborted++;
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * Replaces the outcome of a finished task with the outcome of the tasks it handed its work to. Nothing is
+     * recorded if the task is pending again or has run again since it scheduled them.
+     * @param childrenScheduledOn when the child tasks were scheduled
+     * @return true if the outcome was recorded
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean recordOutcome(String name, Instant childrenScheduledOn, char status, String response) {
+        TaskEntity entity = taskRepo.findByNameOrderByIdDesc(name).stream().findFirst().orElse(null);
+        if (null == entity || Task.SCHEDULED == entity.getStatus() || Task.INFLIGHT == entity.getStatus()
+                || null == entity.getLastExecutedOn() || entity.getLastExecutedOn().isAfter(childrenScheduledOn)) {
+            return false;
+        }
+        entity.setStatus(status);
+        entity.setResponse(response);
         update(entity);
-        updateHistory(entity, Task.FAILED, response);
         taskRepo.save(entity);
+        return true;
+    }
+
+    /**
+     * Removes the tasks and their history from the hot tables, optionally copying them to the archive tables first
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void removeTasks(List<Long> taskIds, boolean archive) {
+        if (archive) {
+            taskRepo.archiveByIdIn(taskIds);
+            taskHistoryRepo.archiveByTaskIdIn(taskIds);
+        }
+        taskHistoryRepo.deleteByTaskIdIn(taskIds);
+        taskRepo.deleteByIdIn(taskIds);
+    }
+
+    private static boolean isRerunRequested(TaskEntity entity) {
+        return Boolean.TRUE.equals(entity.getRerunRequested());
+    }
+
+    static int getAttempts(TaskEntity entity) {
+        return null == entity.getAttempts() ? 0 : entity.getAttempts();
     }
 
     private void update(TaskEntity entity) {
@@ -145,6 +313,7 @@ public class TaskEntityService {
         }
 
         historyEntity.setExecutedOn(Instant.now());
+        historyEntity.setAttempt(entity.getAttempts());
     }
 
     private static TaskHistoryEntity createTaskHistory(TaskEntity entity, Instant instant) {
@@ -163,25 +332,6 @@ public class TaskEntityService {
         if (null == task.getId())
             return null;
 
-        TaskEntity entity = taskRepo.findById(task.getId()).orElse(null);
-
-        if (null != entity)
-            return entity;
-
-        int i = 0;
-        while (null == entity && i < 6) {
-            sleep(1000);
-            i++;
-            entity = taskRepo.findById(task.getId()).orElse(null);
-        }
-        return entity;
-    }
-
-
-    private void sleep(int i) {
-        try {
-            Thread.sleep(i);
-        } catch (InterruptedException e) {
-        }
+        return taskRepo.findForUpdateById(task.getId()).orElse(null);
     }
 }
@@ -0,0 +1,63 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Micrometer metrics of the async task executor, tagged by {@code AsyncConsumer.getTaskName()}
+ */
+@Component
+public class TaskMetrics {
+    static final String PREFIX = "cat.async.tasks";
+
+    private final MeterRegistry registry;
+
+    public TaskMetrics(MeterRegistry registry, @Qualifier("comExecutor") ThreadPoolTaskExecutor executor,
+                       InFlightTaskRegistry inFlightTasks) {
+        this.registry = registry;
+        Gauge.builder(PREFIX + ".queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Tasks waiting in the executor queue").register(registry);
+        Gauge.builder(PREFIX + ".workers.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Workers executing a task").register(registry);
+        Gauge.builder(PREFIX + ".inflight", inFlightTasks, InFlightTaskRegistry::size)
+                .description("Tasks queued, deferred or running on this node").register(registry);
+    }
+
+    /**
+     * Records how long the task waited between being due and being started
+     */
+    public void recordStart(String taskName, Instant dueAt) {
+        if (null == dueAt)
+            return;
+        Duration age = Duration.between(dueAt, Instant.now());
+        Timer.builder(PREFIX + ".age").description("Delay between a task being due and starting")
+                .tag("task", taskName).register(registry).record(age.isNegative() ? Duration.ZERO : age);
+    }
+
+    public void recordExecution(String taskName, String outcome, long startNanos) {
+        Timer.builder(PREFIX + ".execution").description("Task execution time")
+                .tag("task", taskName).tag("outcome", outcome)
+                .register(registry).record(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    public void incrementRetries(String taskName) {
+        Counter.builder(PREFIX + ".retries").tag("task", taskName).register(registry).increment();
+    }
+
+    public void incrementFailures(String taskName) {
+        Counter.builder(PREFIX + ".failures").tag("task", taskName).register(registry).increment();
+    }
+
+    public void incrementReloaded(String source, int count) {
+        Counter.builder(PREFIX + ".reloaded").description("Tasks dispatched by the data store sweeps")
+                .tag("source", source).register(registry).increment(count);
+    }
+}
@@ -0,0 +1,64 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.core.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Keeps the tasks and task_history tables down to the active and recently finished tasks, so the
+ * sweeps of {@link TaskDataStoreRefresher} stay cheap. Finished tasks older than the retention period
+ * are moved to tasks_archive / task_history_archive, or just deleted when archiving is disabled.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TaskRetentionJob {
+    private static final char[] FINISHED_STATUS = {Task.COMPLETED, Task.FAILED, Task.ABORTED};
+
+    private final TaskRepo taskRepo;
+    private final TaskEntityService taskEntityService;
+
+    @Value("${config.async.tasks.retention.enabled: true}")
+    private boolean enabled;
+
+    @Value("${config.async.tasks.retention.days: 30}")
+    private int retentionDays;
+
+    @Value("${config.async.tasks.retention.archive: true}")
+    private boolean archive;
+
+    @Value("${config.async.tasks.retention.batch.size: 500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${config.async.tasks.retention.schedule: 0 30 2 * * *}")
+    @SchedulerLock(name = "TaskRetention_scheduledTask",
+            lockAtLeastForString = "PT5M", lockAtMostForString = "PT30M")
+    public void pruneFinishedTasks() {
+        if (!enabled)
+            return;
+
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        int total = 0;
+        List<Long> taskIds = taskRepo.findIdsByStatusInAndUpdatedBefore(FINISHED_STATUS, before, PageRequest.of(0, batchSize));
+        while (!taskIds.isEmpty()) {
+            taskEntityService.removeTasks(taskIds, archive);
+            total += taskIds.size();
+            taskIds = taskRepo.findIdsByStatusInAndUpdatedBefore(FINISHED_STATUS, before, PageRequest.of(0, batchSize));
+        }
+
+        if (total > 0) {
+            log.info("{} {} finished tasks last updated before {}", archive ? "Archived" : "Deleted", total, before);
+        } else {
+            log.trace("No finished tasks to prune");
+        }
+    }
+}
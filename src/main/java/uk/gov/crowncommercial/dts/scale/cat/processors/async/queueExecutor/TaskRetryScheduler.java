@@ -0,0 +1,95 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands retried tasks back to the executor as soon as their backoff delay has elapsed, rather than
+ * leaving them to the next sweep of {@link TaskDataStoreRefresher}. The sweep still picks up retries
+ * which were pending when the node went down.
+ * <p>
+ * A pending retry is dropped when it is {@link #cancel(Long) cancelled}, or when the task row no longer
+ * carries the attempt count it was scheduled with, e.g. because it was re-queued on another node.
+ */
+@Component
+@Slf4j
+public class TaskRetryScheduler {
+    static final long REDISPATCH_DELAY_MS = 1000;
+
+    private final QueuedAsyncExecutor asyncExecutor;
+    private final TaskRepo taskRepo;
+    private final Map<Long, Object> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService delayed = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "JGR-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TaskRetryScheduler(QueuedAsyncExecutor asyncExecutor, TaskRepo taskRepo) {
+        this.asyncExecutor = asyncExecutor;
+        this.taskRepo = taskRepo;
+    }
+
+    /**
+     * @param attempts the attempt count stored on the task row along with {@code nextAttemptAt}
+     */
+    public void schedule(Task task, Instant nextAttemptAt, int attempts) {
+        long delay = Math.max(0, Duration.between(Instant.now(), nextAttemptAt).toMillis());
+        log.info("Task {} will be retried in {}ms", task.getId(), delay);
+        Object token = new Object();
+        pending.put(task.getId(), token);
+        delayed.schedule(() -> dispatch(task, attempts, token), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the pending retry of the task, if any
+     *
+     * @return true if a retry was pending
+     */
+    public boolean cancel(Long taskId) {
+        return null != pending.remove(taskId);
+    }
+
+    private void dispatch(Task task, int attempts, Object token) {
+        if (pending.get(task.getId()) != token) {
+            log.debug("Retry of task {} was cancelled or superseded", task.getId());
+            return;
+        }
+        try {
+            if (!isStillScheduled(task.getId(), attempts)) {
+                log.info("Task {} changed since its retry was scheduled, retry dropped", task.getId());
+                pending.remove(task.getId(), token);
+            } else if (asyncExecutor.dispatch(task)) {
+                pending.remove(task.getId(), token);
+            } else {
+                // the failed attempt has not released the task yet
+                delayed.schedule(() -> dispatch(task, attempts, token), REDISPATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException re) {
+            pending.remove(task.getId(), token);
+            log.error("Unable to dispatch the retry of task {}, left to the data store refresher", task.getId(), re);
+        }
+    }
+
+    private boolean isStillScheduled(Long taskId, int attempts) {
+        return taskRepo.findById(taskId)
+                .filter(entity -> Task.SCHEDULED == entity.getStatus())
+                .filter(entity -> TaskEntityService.getAttempts(entity) == attempts)
+                .isPresent();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayed.shutdownNow();
+    }
+}
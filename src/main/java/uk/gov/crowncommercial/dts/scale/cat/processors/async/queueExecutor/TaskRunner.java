@@ -6,9 +6,12 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
 import uk.gov.crowncommercial.dts.scale.cat.processors.async.RetryableException;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec.TaskPayloadCodecs;
 
 import jakarta.transaction.Transactional;
+import java.time.Instant;
 
 @Component
 @Scope("prototype")
@@ -17,6 +20,9 @@ import jakarta.transaction.Transactional;
 public class TaskRunner{
     private final ApplicationContext ctx;
     private final TaskEntityService taskEntityService;
+    private final TaskRetryScheduler retryScheduler;
+    private final TaskMetrics metrics;
+    private final TaskPayloadCodecs payloadCodecs;
 
 //    @Transactional
     public void runTask(Task task){
@@ -24,20 +30,39 @@ public class TaskRunner{
             throw new IllegalArgumentException("Task must be persisted in database before execution");
         }
         AsyncConsumer consumer = ctx.getBean(task.getRunner(), AsyncConsumer.class);
-        taskEntityService.markInProgress(task);
+        TaskEntity entity = taskEntityService.markInProgress(task);
+        // a re-submission may have replaced the data since the task was queued
+        task.setData(payloadCodecs.decode(entity.getData(), entity.getDataClass()));
+        int attempt = TaskEntityService.getAttempts(entity);
+        metrics.recordStart(consumer.getTaskName(), entity.getTobeExecutedAt());
+        long startNanos = System.nanoTime();
         try {
             String response = execute(task, consumer);
-            taskEntityService.markComplete(task, response);
+            boolean rerun = taskEntityService.markComplete(task, response);
+            metrics.recordExecution(consumer.getTaskName(), "completed", startNanos);
+            finish(task, consumer, rerun, true);
         } catch (RetryableException re) {
-            if (consumer.canRetry(re.getErrorCode(), re)) {
-                log.info("Rescheduling the task {} for user {}", consumer.getTaskName(), task.getPrincipal());
-                String response = "Rescheduled. "
+            metrics.recordExecution(consumer.getTaskName(), "error", startNanos);
+            int maxAttempts = consumer.getMaxAttempts();
+            if (consumer.canRetry(re.getErrorCode(), re) && (maxAttempts <= 0 || attempt < maxAttempts)) {
+                Instant nextAttemptAt = Instant.now().plus(consumer.getRetryBackoff().getDelay(attempt));
+                log.info("Rescheduling the task {} for user {}, attempt {} of {} at {}", consumer.getTaskName(),
+                        task.getPrincipal(), attempt + 1, maxAttempts > 0 ? maxAttempts : "unlimited", nextAttemptAt);
+                String response = "Rescheduled after attempt " + attempt + ". "
                         + "::"  + consumer.onError(re.getErrorCode(), re.getCause());
-                taskEntityService.markRetry(task, response);
+                int attempts = taskEntityService.markRetry(task, response, nextAttemptAt);
+                if (TaskEntityService.NOT_RETRIED == attempts) {
+                    log.info("Task {} was aborted while running, not retrying it", task.getId());
+                    finish(task, consumer, false, false);
+                    return;
+                }
+                metrics.incrementRetries(consumer.getTaskName());
+                retryScheduler.schedule(task, nextAttemptAt, attempts);
             }else{
                 markFailure(task, consumer, re.getCause());
             }
         } catch (Throwable t) {
+            metrics.recordExecution(consumer.getTaskName(), "error", startNanos);
             markFailure(task, consumer, t);
         }
     }
@@ -46,7 +71,23 @@ public class TaskRunner{
         log.error("Error while processing task {} for user {}", consumer.getTaskName(), task.getPrincipal());
         log.error("Error details", t);
         String response = consumer.onError("UNKNOWN", t);
-        taskEntityService.markFailure(task, response);
+        boolean rerun = taskEntityService.markFailure(task, response);
+        metrics.incrementFailures(consumer.getTaskName());
+        finish(task, consumer, rerun, false);
+    }
+
+    private void finish(Task task, AsyncConsumer consumer, boolean rerun, boolean succeeded) {
+        if (rerun) {
+            log.info("Task {} was submitted again while running, running it with the latest data", task.getId());
+            // a re-run starts over with no attempts
+            retryScheduler.schedule(task, Instant.now(), 0);
+            return;
+        }
+        try {
+            consumer.onFinished(task.getPrincipal(), task.getData(), succeeded);
+        } catch (RuntimeException re) {
+            log.error("Error while finishing task {}", task.getId(), re);
+        }
     }
 
 
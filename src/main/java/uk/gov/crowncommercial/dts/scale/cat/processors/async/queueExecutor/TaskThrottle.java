@@ -0,0 +1,144 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import com.google.common.util.concurrent.RateLimiter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the per consumer concurrency and rate limits declared by the {@link AsyncConsumer}.
+ * Tasks which cannot be started are taken off the worker, so that a busy consumer never holds a
+ * worker that could be running another consumer's task. Tasks over the concurrency limit are parked
+ * per consumer and handed back to the executor queue one at a time as permits are returned; tasks
+ * over the rate limit are handed back once the rate allows another execution.
+ */
+@Component
+@Slf4j
+public class TaskThrottle {
+    private final ThreadPoolTaskExecutor taskExecutor;
+    private final ApplicationContext ctx;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final Map<String, Queue<RunnableTask>> parked = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService deferred = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "JGR-deferred");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TaskThrottle(@Qualifier("comExecutor") ThreadPoolTaskExecutor executor, ApplicationContext ctx) {
+        this.taskExecutor = executor;
+        this.ctx = ctx;
+    }
+
+    public boolean tryAcquire(Task task) {
+        AsyncConsumer<?> consumer = getConsumer(task);
+        Semaphore semaphore = getPermits(task.getRunner(), consumer);
+        if (null != semaphore && !semaphore.tryAcquire()) {
+            return false;
+        }
+        RateLimiter rateLimiter = getRateLimiter(task.getRunner(), consumer);
+        if (null != rateLimiter && !rateLimiter.tryAcquire()) {
+            if (null != semaphore) {
+                semaphore.release();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the task's permit and hands the consumer's next parked task back to the executor
+     */
+    public void release(Task task) {
+        Semaphore semaphore = permits.get(task.getRunner());
+        if (null != semaphore) {
+            semaphore.release();
+            resumeParked(task.getRunner());
+        }
+    }
+
+    /**
+     * Takes a task that could not be started off the worker, until the limit it hit allows it to run
+     */
+    public void defer(RunnableTask runnableTask) {
+        Task task = runnableTask.getTask();
+        Semaphore semaphore = permits.get(task.getRunner());
+        if (null != semaphore && semaphore.availablePermits() == 0) {
+            log.debug("Task {} of {} is over the concurrency limit, parked", task.getId(), task.getRunner());
+            parked.computeIfAbsent(task.getRunner(), k -> new PriorityBlockingQueue<>(11, RunnableTask.DISPATCH_ORDER))
+                    .add(runnableTask);
+            // a permit returned while the task was being parked would not have resumed it
+            if (semaphore.availablePermits() > 0) {
+                resumeParked(task.getRunner());
+            }
+            return;
+        }
+        long delay = getRateInterval(getConsumer(task));
+        log.debug("Task {} of {} is over the rate limit, deferring by {}ms", task.getId(), task.getRunner(), delay);
+        deferred.schedule(() -> taskExecutor.execute(runnableTask), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Number of tasks of the consumer waiting for a permit
+     */
+    int getParkedCount(String runner) {
+        Queue<RunnableTask> queue = parked.get(runner);
+        return null == queue ? 0 : queue.size();
+    }
+
+    private void resumeParked(String runner) {
+        Queue<RunnableTask> queue = parked.get(runner);
+        RunnableTask next = null == queue ? null : queue.poll();
+        if (null != next) {
+            // the executor blocks the submitter while its queue is full, which must not be a worker
+            deferred.execute(() -> taskExecutor.execute(next));
+        }
+    }
+
+    private static long getRateInterval(AsyncConsumer<?> consumer) {
+        double maxExecutionsPerSecond = consumer.getMaxExecutionsPerSecond();
+        if (maxExecutionsPerSecond <= 0) {
+            return 1;
+        }
+        return Math.max(1, (long) Math.ceil(1000 / maxExecutionsPerSecond));
+    }
+
+    private AsyncConsumer<?> getConsumer(Task task) {
+        return ctx.getBean(task.getRunner(), AsyncConsumer.class);
+    }
+
+    private Semaphore getPermits(String runner, AsyncConsumer<?> consumer) {
+        int maxConcurrency = consumer.getMaxConcurrency();
+        if (maxConcurrency <= 0) {
+            return null;
+        }
+        return permits.computeIfAbsent(runner, k -> new Semaphore(maxConcurrency));
+    }
+
+    private RateLimiter getRateLimiter(String runner, AsyncConsumer<?> consumer) {
+        double maxExecutionsPerSecond = consumer.getMaxExecutionsPerSecond();
+        if (maxExecutionsPerSecond <= 0) {
+            return null;
+        }
+        return rateLimiters.computeIfAbsent(runner, k -> RateLimiter.create(maxExecutionsPerSecond));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deferred.shutdownNow();
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Plain JSON text, the default encoding and the one of the tasks persisted before codecs were introduced
+ */
+@Component
+@Slf4j
+public class JsonPayloadCodec implements TaskPayloadCodec {
+    public static final String NAME = "json";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public JsonPayloadCodec() {
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String encode(Object data) {
+        try {
+            return mapper.writeValueAsString(data);
+        } catch (JsonProcessingException jpe) {
+            log.error("Error while serializing", jpe);
+            throw new IllegalArgumentException("Data cannot be serialized into json", jpe);
+        }
+    }
+
+    @Override
+    public String encodeJson(String json) {
+        return json;
+    }
+
+    @Override
+    public <D> D decode(String payload, Class<D> clazz) {
+        try {
+            return mapper.readValue(payload, clazz);
+        } catch (JsonProcessingException jpe) {
+            log.error("Error while De-Serializing " + payload, jpe);
+            throw new IllegalArgumentException("Data cannot be de-serialized into json", jpe);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Jackson Smile binary encoding, deflated and Base64 encoded to fit the text column
+ */
+@Component
+@Slf4j
+public class SmilePayloadCodec implements TaskPayloadCodec {
+    public static final String NAME = "smile";
+
+    private final ObjectMapper mapper = new SmileMapper();
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public SmilePayloadCodec() {
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String encode(Object data) {
+        var bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED))) {
+            mapper.writeValue(out, data);
+        } catch (IOException ioe) {
+            log.error("Error while serializing", ioe);
+            throw new IllegalArgumentException("Data cannot be serialized into smile", ioe);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Copies the JSON tokens straight to the Smile generator
+     */
+    @Override
+    public String encodeJson(String json) {
+        var bytes = new ByteArrayOutputStream();
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = mapper.getFactory().createGenerator(
+                     new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)))) {
+            while (null != parser.nextToken()) {
+                generator.copyCurrentEvent(parser);
+            }
+        } catch (IOException ioe) {
+            log.error("Error while transcoding json", ioe);
+            throw new IllegalArgumentException("Data cannot be serialized into smile", ioe);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    @Override
+    public <D> D decode(String payload, Class<D> clazz) {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(payload)))) {
+            return mapper.readValue(in, clazz);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Error while De-Serializing smile payload", e);
+            throw new IllegalArgumentException("Data cannot be de-serialized from smile", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec;
+
+/**
+ * Encoding of the task data stored in {@code TaskEntity.data}
+ */
+public interface TaskPayloadCodec {
+
+    /**
+     * Name of the codec, also the prefix of the payloads it writes except for the default codec
+     */
+    String getName();
+
+    String encode(Object data);
+
+    /**
+     * Re-encodes data the default codec already serialised to JSON, without serialising the data again
+     */
+    String encodeJson(String json);
+
+    <D> D decode(String payload, Class<D> clazz);
+}
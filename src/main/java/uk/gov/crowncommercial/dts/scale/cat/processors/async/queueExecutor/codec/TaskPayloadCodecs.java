@@ -0,0 +1,71 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the payload codecs and of the task data classes.
+ * <p>
+ * Payloads are written as {@code <codec name>:<encoded data>}, except for the json codec which writes
+ * the bare JSON so that the payloads stay readable by the older nodes. The json codec is used for small
+ * payloads, larger ones use the configured codec. The data is serialised once, to JSON, and large payloads
+ * are re-encoded from that JSON.
+ */
+@Component
+@Slf4j
+public class TaskPayloadCodecs {
+    private static final char SEPARATOR = ':';
+
+    private final Map<String, TaskPayloadCodec> codecs;
+    private final TaskPayloadCodec defaultCodec;
+    private final ExperimentalFlagsConfig experimentalFlags;
+    private final Map<String, Class<?>> dataClasses = new ConcurrentHashMap<>();
+
+    public TaskPayloadCodecs(List<TaskPayloadCodec> codecs, ExperimentalFlagsConfig experimentalFlags) {
+        this.codecs = codecs.stream().collect(Collectors.toMap(TaskPayloadCodec::getName, Function.identity()));
+        this.defaultCodec = this.codecs.get(JsonPayloadCodec.NAME);
+        this.experimentalFlags = experimentalFlags;
+    }
+
+    public String encode(Object data) {
+        if (null != data) {
+            dataClasses.putIfAbsent(data.getClass().getCanonicalName(), data.getClass());
+        }
+        String json = defaultCodec.encode(data);
+        TaskPayloadCodec codec = codecs.get(experimentalFlags.getAsyncTaskPayloadCodec());
+        if (null == codec || codec == defaultCodec
+                || json.length() < experimentalFlags.getAsyncTaskPayloadCodecThreshold()) {
+            return json;
+        }
+        return codec.getName() + SEPARATOR + codec.encodeJson(json);
+    }
+
+    public Object decode(String payload, String className) {
+        Class<?> clazz = getDataClass(className);
+        int separator = payload.indexOf(SEPARATOR);
+        if (separator > 0) {
+            TaskPayloadCodec codec = codecs.get(payload.substring(0, separator));
+            if (null != codec) {
+                return codec.decode(payload.substring(separator + 1), clazz);
+            }
+        }
+        return defaultCodec.decode(payload, clazz);
+    }
+
+    private Class<?> getDataClass(String className) {
+        return dataClasses.computeIfAbsent(className, name -> {
+            try {
+                return Class.forName(name);
+            } catch (ClassNotFoundException cnfe) {
+                throw new IllegalArgumentException("Unknown task data class " + name, cnfe);
+            }
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.crowncommercial.dts.scale.cat.repo;
+
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshot;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshotKey;
+
+/**
+ * Stored OCDS project packages, keyed by project and requested sections
+ */
+@Repository
+public interface OcdsRecordSnapshotRepo
+    extends JpaRepository<OcdsRecordSnapshot, OcdsRecordSnapshotKey> {
+
+  /**
+   * Runs in its own transaction, so it can be called after the caller's transaction has committed
+   */
+  @Modifying
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  @Query("delete from OcdsRecordSnapshot s where s.key.projectId = :projectId")
+  int deleteByProjectId(@Param("projectId") Integer projectId);
+
+  @Modifying
+  @Transactional
+  @Query("delete from OcdsRecordSnapshot s where s.createdAt < :before")
+  int deleteByCreatedAtBefore(@Param("before") Instant before);
+
+}
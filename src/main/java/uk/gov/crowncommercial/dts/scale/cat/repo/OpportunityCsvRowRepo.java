@@ -0,0 +1,16 @@
+package uk.gov.crowncommercial.dts.scale.cat.repo;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OpportunityCsvRow;
+
+/**
+ *
+ */
+@Repository
+public interface OpportunityCsvRowRepo extends JpaRepository<OpportunityCsvRow, Integer> {
+
+  List<OpportunityCsvRow> findByAgreementId(String agreementId);
+
+}
@@ -1,5 +1,6 @@
 package uk.gov.crowncommercial.dts.scale.cat.repo;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Set;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,4 +21,21 @@ public interface ProcurementProjectRepo extends JpaRepository<ProcurementProject
         + " where pp.commercial_agreement_number = :agreementId and pe.publish_date is not null"
         + " group by pp.project_id", nativeQuery = true)
     Set<ProcurementProject> findPublishedEventsByAgreementId(String agreementId);
+
+    @Query(value = "select pp.* from procurement_projects pp"
+        + " inner join procurement_events pe on pe.project_id = pp.project_id"
+        + " where pp.commercial_agreement_number = :agreementId and pe.publish_date is not null"
+        + " and (pe.updated_at > :since or pp.updated_at > :since)"
+        + " group by pp.project_id", nativeQuery = true)
+    Set<ProcurementProject> findPublishedEventsByAgreementIdUpdatedSince(String agreementId,
+        Instant since);
+
+    @Query(value = "select pp.project_id from procurement_projects pp"
+        + " inner join procurement_events pe on pe.project_id = pp.project_id"
+        + " where pp.commercial_agreement_number = :agreementId and pe.publish_date is not null"
+        + " group by pp.project_id"
+        + " having min(pe.publish_date) >= :from and min(pe.publish_date) < :to"
+        + " order by pp.project_id", nativeQuery = true)
+    List<Integer> findPublishedProjectIdsByAgreementId(String agreementId, Instant from,
+        Instant to);
 }
@@ -21,6 +21,10 @@ import uk.gov.crowncommercial.dts.scale.cat.model.entity.OrganisationMapping;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProjectUserMapping;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OpportunityCsvRow;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshot;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshotKey;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.SearchSyncState;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.SupplierSelection;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.AssessmentDimensionWeighting;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.AssessmentEntity;
@@ -66,6 +70,9 @@ public class RetryableTendersDBDelegate {
   private final BuyerUserDetailsRepo buyerUserDetailsRepo;
   private final ContractDetailsRepo contractDetailsRepo;
   private final QuestionAndAnswerRepo questionAndAnswerRepo;
+  private final SearchSyncStateRepo searchSyncStateRepo;
+  private final OpportunityCsvRowRepo opportunityCsvRowRepo;
+  private final OcdsRecordSnapshotRepo ocdsRecordSnapshotRepo;
 
 
   @TendersRetryable
@@ -431,6 +438,70 @@ public class RetryableTendersDBDelegate {
   public Set<ProcurementProject> findPublishedEventsByAgreementId(final String agreementId) {
     return procurementProjectRepo.findPublishedEventsByAgreementId(agreementId);
   }
+
+  @TendersRetryable
+  @Transactional(readOnly = true)
+  public Set<ProcurementProject> findPublishedEventsByAgreementIdUpdatedSince(
+      final String agreementId, final Instant since) {
+    return procurementProjectRepo.findPublishedEventsByAgreementIdUpdatedSince(agreementId, since);
+  }
+
+  @TendersRetryable
+  @Transactional(readOnly = true)
+  public List<Integer> findPublishedProjectIdsByAgreementId(final String agreementId,
+      final Instant from, final Instant to) {
+    return procurementProjectRepo.findPublishedProjectIdsByAgreementId(agreementId, from, to);
+  }
+
+  @TendersRetryable
+  public List<ProcurementProject> findProcurementProjectsByIdIn(final Set<Integer> ids) {
+    return procurementProjectRepo.findAllById(ids);
+  }
+
+  @TendersRetryable
+  public Optional<SearchSyncState> findSearchSyncState(final String name) {
+    return searchSyncStateRepo.findById(name);
+  }
+
+  @TendersRetryable
+  public SearchSyncState save(final SearchSyncState searchSyncState) {
+    return searchSyncStateRepo.save(searchSyncState);
+  }
+
+  @TendersRetryable
+  public List<OpportunityCsvRow> findOpportunityCsvRowsByAgreementId(final String agreementId) {
+    return opportunityCsvRowRepo.findByAgreementId(agreementId);
+  }
+
+  @TendersRetryable
+  public List<OpportunityCsvRow> saveOpportunityCsvRows(final List<OpportunityCsvRow> rows) {
+    return opportunityCsvRowRepo.saveAll(rows);
+  }
+
+  @TendersRetryable
+  public void deleteOpportunityCsvRows(final List<OpportunityCsvRow> rows) {
+    opportunityCsvRowRepo.deleteAll(rows);
+  }
+
+  @TendersRetryable
+  public Optional<OcdsRecordSnapshot> findOcdsRecordSnapshot(final OcdsRecordSnapshotKey key) {
+    return ocdsRecordSnapshotRepo.findById(key);
+  }
+
+  @TendersRetryable
+  public OcdsRecordSnapshot save(final OcdsRecordSnapshot ocdsRecordSnapshot) {
+    return ocdsRecordSnapshotRepo.save(ocdsRecordSnapshot);
+  }
+
+  @TendersRetryable
+  public int deleteOcdsRecordSnapshots(final Integer projectId) {
+    return ocdsRecordSnapshotRepo.deleteByProjectId(projectId);
+  }
+
+  @TendersRetryable
+  public int deleteOcdsRecordSnapshotsCreatedBefore(final Instant before) {
+    return ocdsRecordSnapshotRepo.deleteByCreatedAtBefore(before);
+  }
   
   @TendersRetryable
   @Transactional(readOnly = true)
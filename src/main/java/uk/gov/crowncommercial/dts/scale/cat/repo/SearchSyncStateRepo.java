@@ -0,0 +1,13 @@
+package uk.gov.crowncommercial.dts.scale.cat.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.SearchSyncState;
+
+/**
+ *
+ */
+@Repository
+public interface SearchSyncStateRepo extends JpaRepository<SearchSyncState, String> {
+
+}
@@ -1,8 +1,30 @@
 package uk.gov.crowncommercial.dts.scale.cat.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskHistoryEntity;
 
+import java.util.List;
+
 public interface TaskHistoryRepo extends JpaRepository<TaskHistoryEntity, Long> {
 
+    /**
+     * The columns copied to task_history_archive, see {@link TaskRepo#ARCHIVED_COLUMNS}
+     */
+    String ARCHIVED_COLUMNS = "task_history_id, task_id, scheduled_on, executed_on, task_history_status, task_attempt, "
+            + "task_node, task_response, created_by, created_at, updated_by, updated_at";
+
+    /**
+     * Copies the history of the tasks to the task_history_archive table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO task_history_archive (" + ARCHIVED_COLUMNS + ") SELECT " + ARCHIVED_COLUMNS
+            + " FROM task_history WHERE task_id IN :taskIds", nativeQuery = true)
+    int archiveByTaskIdIn(@Param("taskIds") List<Long> taskIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM task_history WHERE task_id IN :taskIds", nativeQuery = true)
+    int deleteByTaskIdIn(@Param("taskIds") List<Long> taskIds);
 }
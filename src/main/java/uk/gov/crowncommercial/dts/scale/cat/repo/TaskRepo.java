@@ -1,6 +1,10 @@
 package uk.gov.crowncommercial.dts.scale.cat.repo;
 
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,6 +12,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepo  extends JpaRepository<TaskEntity, Long> {
@@ -28,4 +33,44 @@ public interface TaskRepo  extends JpaRepository<TaskEntity, Long> {
     @Query(value = delayedJobsQuery)
     List<TaskEntity> findByNodeAndStatusIn(String node, char[] statusList,
                                            @Param("lastAccessTime")Instant lastAccessTime, @Param("scheduleTime") Instant scheduledAt);
+
+    /**
+     * The rows with the name, newest first. Names are unique once tasks_task_name_uk is in place, rows
+     * created before it may share one.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<TaskEntity> findByNameOrderByIdDesc(String name);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select task from TaskEntity task where task.id = :id")
+    Optional<TaskEntity> findForUpdateById(@Param("id") Long id);
+
+    List<TaskEntity> findByRecordTypeAndRecordIdOrderByIdDesc(String recordType, String recordId);
+
+    List<TaskEntity> findByTaskExecutorAndRecordTypeAndRecordIdStartingWith(String taskExecutor, String recordType,
+                                                                             String recordIdPrefix);
+
+    @Query(value = "select task.id from TaskEntity task WHERE status in :statusList and timestamps.updatedAt < :before order by task.id")
+    List<Long> findIdsByStatusInAndUpdatedBefore(@Param("statusList") char[] statusList, @Param("before") Instant before,
+                                                 Pageable pageable);
+
+    /**
+     * The columns copied to tasks_archive, listed so that the archive still works when its columns are in a
+     * different order, or it has columns tasks no longer has
+     */
+    String ARCHIVED_COLUMNS = "task_id, task_name, task_object, task_record_id, principal, task_executor, "
+            + "task_priority, task_data_type, task_data, scheduled_on, tobe_executed_at, last_executed_on, task_status, "
+            + "task_attempts, rerun_requested, task_node, task_response, created_by, created_at, updated_by, updated_at";
+
+    /**
+     * Copies the tasks to the tasks_archive table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tasks_archive (" + ARCHIVED_COLUMNS + ") SELECT " + ARCHIVED_COLUMNS
+            + " FROM tasks WHERE task_id IN :ids", nativeQuery = true)
+    int archiveByIdIn(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM tasks WHERE task_id IN :ids", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
@@ -1,5 +1,6 @@
 package uk.gov.crowncommercial.dts.scale.cat.repo.specification;
 
+import com.google.common.primitives.Ints;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.jpa.domain.Specification;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
@@ -43,20 +44,19 @@ public class ProjectSearchSpecification implements Specification<ProjectUserMapp
         criteriaBuilder.equal(root.get(SEARCH_KEY_USER_ID), projectSearchCriteria.getUserId());
     predicates.add(predicate);
 
-    //Child Joins
-    Join<ProcurementProject, ProjectUserMapping> project =
-        root.join(CHILD_ELEMENT_PROJECT, JoinType.LEFT);
-    Join<ProcurementEvent, ProcurementProject> event =
-        project.join(CHILD_ELEMENT_PROCUREMENT_EVENTS, JoinType.LEFT);
-
-
+    // Each search filters on a single expression backed by a trigram index (upper of the project
+    // name or event reference) or the event primary key. Events are matched with an EXISTS
+    // rather than a join, so a project is listed once however many events it has.
     if (Objects.nonNull(projectSearchCriteria.getSearchType())) {
         switch (projectSearchCriteria.getSearchType()) {
-            case SEARCH_TYPE_PROJECT_NAME -> buildProjectNameCriteria(criteriaBuilder, predicates, project);
+            case SEARCH_TYPE_PROJECT_NAME -> buildProjectNameCriteria(criteriaBuilder, predicates,
+                root.join(CHILD_ELEMENT_PROJECT, JoinType.LEFT));
 
-            case SEARCH_TYPE_EVENT_ID -> buildEventIdCriteria(criteriaBuilder, predicates, event);
+            case SEARCH_TYPE_EVENT_ID -> buildEventCriteria(root, query, criteriaBuilder, predicates,
+                this::buildEventIdCriteria);
 
-            case SEARCH_TYPE_EVENT_SUPPORT_ID -> buildEventSupportIdCriteria(criteriaBuilder, predicates, event);
+            case SEARCH_TYPE_EVENT_SUPPORT_ID -> buildEventCriteria(root, query, criteriaBuilder,
+                predicates, this::buildEventSupportIdCriteria);
 
             default -> {
             }
@@ -65,10 +65,35 @@ public class ProjectSearchSpecification implements Specification<ProjectUserMapp
     return criteriaBuilder.and(predicates.toArray(new Predicate[predicates.size()]));
   }
 
+  private void buildEventCriteria(
+      Root<ProjectUserMapping> root,
+      CriteriaQuery<?> query,
+      CriteriaBuilder criteriaBuilder,
+      List<Predicate> predicates,
+      EventCriteria eventCriteria) {
+
+    if (isSearchTermValid(projectSearchCriteria.getSearchTerm())) {
+      Subquery<Integer> events = query.subquery(Integer.class);
+      Root<ProcurementEvent> event = events.from(ProcurementEvent.class);
+      List<Predicate> eventPredicates = new ArrayList<>();
+      eventPredicates.add(criteriaBuilder.equal(event.get(CHILD_ELEMENT_PROJECT),
+          root.get(CHILD_ELEMENT_PROJECT)));
+      eventCriteria.build(criteriaBuilder, eventPredicates, event);
+      events.select(event.get(SEARCH_KEY_EVENT_ID))
+          .where(eventPredicates.toArray(new Predicate[eventPredicates.size()]));
+      predicates.add(criteriaBuilder.exists(events));
+    }
+  }
+
+  @FunctionalInterface
+  private interface EventCriteria {
+    void build(CriteriaBuilder criteriaBuilder, List<Predicate> predicates, Root<ProcurementEvent> event);
+  }
+
   private void buildEventSupportIdCriteria(
       CriteriaBuilder criteriaBuilder,
       List<Predicate> predicates,
-      Join<ProcurementEvent, ProcurementProject> event) {
+      Root<ProcurementEvent> event) {
 
     if(isSearchTermValid(projectSearchCriteria.getSearchTerm())){
 
@@ -90,7 +115,7 @@ public class ProjectSearchSpecification implements Specification<ProjectUserMapp
   private void buildEventIdCriteria(
           CriteriaBuilder criteriaBuilder,
           List<Predicate> predicates,
-          Join<ProcurementEvent, ProcurementProject> event) {
+          Root<ProcurementEvent> event) {
 
     if(isSearchTermValid(projectSearchCriteria.getSearchTerm())){
 
@@ -103,10 +128,11 @@ public class ProjectSearchSpecification implements Specification<ProjectUserMapp
                                         convertToLikeString(sanitizedSearchTerm)));
 
       } else {
-        predicates.add(
-                criteriaBuilder.equal(criteriaBuilder.upper(
-                                        event.get(SEARCH_KEY_EVENT_ID)),
-                                        sanitizedSearchTerm.toUpperCase()));
+        // an exact id is a primary key lookup, anything that isn't one matches nothing
+        Integer eventId = Ints.tryParse(sanitizedSearchTerm);
+        predicates.add(Objects.nonNull(eventId)
+                ? criteriaBuilder.equal(event.get(SEARCH_KEY_EVENT_ID), eventId)
+                : criteriaBuilder.disjunction());
       }
     }
   }
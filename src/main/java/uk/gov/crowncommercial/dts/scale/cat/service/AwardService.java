@@ -27,6 +27,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.generated.DocumentAudienceType
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.DocumentSummary;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.OrganizationReference1;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 
 @Service
 @RequiredArgsConstructor
@@ -40,6 +41,7 @@ public class AwardService {
   private final JaggaerService jaggaerService;
 
   private final SupplierService supplierService;
+  private final OcdsRecordSnapshotService ocdsRecordSnapshotService;
 
   public static final String JAGGAER_USER_NOT_FOUND = "Jaggaer user not found";
   public static final String SUPPLIERS_NOT_FOUND = "Supplier details not found";
@@ -72,6 +74,7 @@ public class AwardService {
     var procurementEvent = validationService.validateProjectAndEventIds(projectId, eventId);
     var buyerUser = userService.resolveBuyerUserProfile(principal)
         .orElseThrow(() -> new AuthorisationFailureException(JAGGAER_USER_NOT_FOUND));
+    ocdsRecordSnapshotService.invalidate(projectId);
 
     if (award.getSuppliers().size() > 1) {
       throw new JaggaerRPAException(AWARDS_TO_MUTLIPLE_SUPPLIERS);
@@ -12,6 +12,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.InvalidateEventRequest;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.OwnerUser;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 
 import jakarta.transaction.Transactional;
 
@@ -42,6 +43,8 @@ public class EventTransitionService {
 
   private final ValidationService validationService;
 
+  private final OcdsRecordSnapshotService ocdsRecordSnapshotService;
+
   @Transactional
   public void completeExistingEvent(ProcurementEvent existingEvent, final String principal) {
 
@@ -101,6 +104,7 @@ public class EventTransitionService {
             .orElseThrow(() -> new AuthorisationFailureException(ERR_MSG_JAGGAER_USER_NOT_FOUND))
             .getUserId();
     var terminatingEvent = validationService.validateProjectAndEventIds(procId, eventId);
+    ocdsRecordSnapshotService.invalidate(procId);
 
     if (terminatingEvent.isTendersDBOnly()) {
       updateDbEvent(terminatingEvent, principal, type.name());
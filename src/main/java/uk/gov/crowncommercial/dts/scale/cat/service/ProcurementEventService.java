@@ -37,6 +37,7 @@ import uk.gov.crowncommercial.dts.scale.cat.service.ca.AssessmentService;
 import uk.gov.crowncommercial.dts.scale.cat.service.documentupload.DocumentUploadService;
 import uk.gov.crowncommercial.dts.scale.cat.service.documentupload.callables.DocumentUploadCallable;
 import uk.gov.crowncommercial.dts.scale.cat.service.documentupload.callables.RetrieveDocumentCallable;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 import uk.gov.crowncommercial.dts.scale.cat.utils.ByteArrayMultipartFile;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
@@ -119,6 +120,7 @@ public class ProcurementEventService implements EventService {
     private final AsyncExecutor asyncExecutor;
     private final SupplierStoreFactory supplierStoreFactory;
     private final EventTransitionService eventTransitionService;
+    private final OcdsRecordSnapshotService ocdsRecordSnapshotService;
 
     private final ExecutorService jaggerUploadExecutorService = Executors.newFixedThreadPool(10);
     private final ExecutorService executorService = Executors.newFixedThreadPool(10);
@@ -490,6 +492,7 @@ public class ProcurementEventService implements EventService {
         log.debug("Update Event {}", updateEvent);
 
         var event = validationService.validateProjectAndEventIds(procId, eventId);
+        ocdsRecordSnapshotService.invalidate(procId);
         var exportRfxResponse = getSingleRfx(event.getExternalEventId());
 
         if (updateEvent.getEventType() != null) {
@@ -707,6 +710,7 @@ public class ProcurementEventService implements EventService {
                                        final EventSuppliers eventSuppliers, final boolean overwrite, final String principal) {
 
         var event = validationService.validateProjectAndEventIds(procId, eventId);
+        ocdsRecordSnapshotService.invalidate(procId);
 
         SupplierStore supplierStore = supplierStoreFactory.getStore(event);
 
@@ -782,6 +786,7 @@ public class ProcurementEventService implements EventService {
         log.debug("Delete supplier '{}' from event '{}'", organisationId, eventId);
 
         var event = validationService.validateProjectAndEventIds(procId, eventId);
+        ocdsRecordSnapshotService.invalidate(procId);
 
         SupplierStore supplierStore = supplierStoreFactory.getStore(event);
 
@@ -993,6 +998,7 @@ public class ProcurementEventService implements EventService {
                 .getUserId();
 
         var procurementEvent = validationService.validateProjectAndEventIds(procId, eventId);
+        ocdsRecordSnapshotService.invalidate(procId);
         var exportRfxResponse = getRfxWithSuppliers(procurementEvent.getExternalEventId());
         var status = jaggaerAPIConfig.getRfxStatusToTenderStatus()
                 .get(exportRfxResponse.getRfxSetting().getStatusCode());
@@ -1350,6 +1356,7 @@ public class ProcurementEventService implements EventService {
                 .getUserId();
 
         var procurementEvent = validationService.validateProjectAndEventIds(procId, eventId);
+        ocdsRecordSnapshotService.invalidate(procId);
         var rfxResponse = getSingleRfx(procurementEvent.getExternalEventId());
         var status = jaggaerAPIConfig.getRfxStatusToTenderStatus()
                 .get(rfxResponse.getRfxSetting().getStatusCode());
@@ -1554,6 +1561,7 @@ public class ProcurementEventService implements EventService {
                 .orElseThrow(() -> new AuthorisationFailureException(ERR_MSG_JAGGAER_USER_NOT_FOUND));
         var event = validationService.validateProjectAndEventIds(procId, eventId);
         awardService.getAwardOrPreAwardDetails(procId, eventId, AwardState.AWARD);
+        ocdsRecordSnapshotService.invalidate(procId);
         event.setTenderStatus(COMPLETE_STATUS);
         event.setUpdatedBy(principal);
         event.setUpdatedAt(Instant.now());
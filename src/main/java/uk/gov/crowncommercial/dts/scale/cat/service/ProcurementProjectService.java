@@ -5,18 +5,18 @@ import static org.opensearch.index.query.QueryBuilders.boolQuery;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static uk.gov.crowncommercial.dts.scale.cat.config.JaggaerAPIConfig.ENDPOINT;
 import static uk.gov.crowncommercial.dts.scale.cat.model.entity.Timestamps.createTimestamps;
-import static uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask.CSV_FILE_NAME;
-import static uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask.CSV_FILE_PREFIX;
 import static uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils.getInstantFromDate;
 import static uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils.getTenderPeriod;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -29,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import org.modelmapper.ModelMapper;
 import org.opensearch.common.unit.Fuzziness;
 import org.opensearch.data.client.orhlc.NativeSearchQuery;
@@ -40,8 +41,11 @@ import org.opensearch.search.aggregations.AggregationBuilder;
 import org.opensearch.search.aggregations.AggregationBuilders;
 import org.opensearch.search.aggregations.Aggregations;
 import org.opensearch.search.aggregations.bucket.terms.Terms;
+import org.opensearch.search.aggregations.metrics.TopHits;
 import org.opensearch.search.sort.SortBuilders;
 import org.opensearch.search.sort.SortOrder;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
@@ -52,12 +56,16 @@ import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriUtils;
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import uk.gov.crowncommercial.dts.scale.cat.config.JaggaerAPIConfig;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig;
 import uk.gov.crowncommercial.dts.scale.cat.config.paas.AWSS3Service;
 import uk.gov.crowncommercial.dts.scale.cat.exception.AuthorisationFailureException;
 import uk.gov.crowncommercial.dts.scale.cat.exception.JaggaerApplicationException;
@@ -110,7 +118,11 @@ import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Tender;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.User;
 import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
-import uk.gov.crowncommercial.dts.scale.cat.repo.search.SearchProjectRepo;
+import uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.LocalProjectSearchIndex;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSearchIndexService;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSearchPage;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSearchPage.LotCount;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
 /**
@@ -128,7 +140,6 @@ public class ProcurementProjectService {
   private final ConclaveService conclaveService;
   private final RetryableTendersDBDelegate retryableTendersDBDelegate;
   private final ProcurementEventService procurementEventService;
-  private final SearchProjectRepo searchProjectRepo;
   private final EventTransitionService eventTransitionService;
   private final TendersAPIModelUtils tendersAPIModelUtils;
   private final ModelMapper modelMapper;
@@ -138,6 +149,8 @@ public class ProcurementProjectService {
   private final ElasticsearchOperations elasticsearchOperations;
   private final AmazonS3 tendersS3Client;
   private final AWSS3Service tendersS3Service;
+  private final OpportunityExportConfig opportunityExportConfig;
+  private final Optional<LocalProjectSearchIndex> localProjectSearchIndex;
 
 
   private static final String PROJECT_NAME = "projectName";
@@ -147,7 +160,12 @@ public class ProcurementProjectService {
   private static final String STATUS = "status";
 
   private static final String COUNT_AGGREGATION = "count_lot";
-  private static final String SEARCH_URI = "/tenders/projects/search?agreement-id=RM1043.8&keyword=%s&page=%s&page-size=%s";
+  private static final String LOT_AGGREGATION = "lot";
+  private static final String LOT_DESCRIPTION = "lotDescription";
+  private static final String SEARCH_URI = "/tenders/projects/search?agreement-id=%s&keyword=%s&page=%s&page-size=%s";
+  private static final String SEARCH_CURSOR_URI = "/tenders/projects/search?agreement-id=%s&keyword=%s&page-size=%s&cursor=%s";
+  private static final String PROJECT_ID = "projectId";
+  private static final String AGREEMENT_ID = "agreementId";
 
 
   /**
@@ -805,21 +823,35 @@ public class ProcurementProjectService {
     }
   }
 
-  public ProjectPublicSearchResult getProjectSummery(final String keyword, final String lotId,
-                                            int page, int pageSize, ProjectFilters projectFilters) {
+  /**
+   * Public search results only change when the opportunities are synced to OpenSearch, which evicts
+   * this cache (as does the regular clear down of all caches).
+   * <p>
+   * Given a cursor (empty for the first page) the results are paged with search_after rather than
+   * from/size, so paging through all of them costs the same on every page and isn't bounded by the
+   * index's max_result_window. The next link then carries the cursor of the following page.
+   */
+  @Cacheable(value = "getProjectSummery",
+      key = "{#agreementId, #keyword?.trim(), #lotId, #page, #pageSize, #projectFilters, #cursor}")
+  public ProjectPublicSearchResult getProjectSummery(final String agreementId, final String keyword, final String lotId,
+                                            int page, int pageSize, ProjectFilters projectFilters, final String cursor) {
     ProjectPublicSearchResult projectPublicSearchResult = new ProjectPublicSearchResult();
     ProjectSearchCriteria searchCriteria= new ProjectSearchCriteria();
     searchCriteria.setKeyword(keyword);
     searchCriteria.setFilters(projectFilters!=null ? projectFilters.getFilters() : null);
-    NativeSearchQuery searchQuery = getSearchQuery(keyword, PageRequest.of(page,pageSize), lotId, projectFilters!=null ? projectFilters.getFilters().stream().findFirst().get() : null);
-    NativeSearchQuery searchCountQuery = getLotCount(keyword,lotId, projectFilters!=null ? projectFilters.getFilters().stream().findFirst().get() : null);
-    SearchHits<ProcurementEventSearch> results = elasticsearchOperations.search(searchQuery, ProcurementEventSearch.class);
-    SearchHits<ProcurementEventSearch> countResults = elasticsearchOperations.search(searchCountQuery, ProcurementEventSearch.class);
-    searchCriteria.setLots(getProjectLots(countResults, lotId));
+    ProjectFilter projectFilter = projectFilters!=null ? projectFilters.getFilters().stream().findFirst().get() : null;
+    List<Object> searchAfter = cursor != null && !cursor.isEmpty() ? decodeCursor(cursor) : null;
+    ProjectSearchPage results = searchProjects(agreementId, keyword, lotId, projectFilter, cursor != null ? 1 : page, pageSize, searchAfter);
+    searchCriteria.setLots(getProjectLots(results.getLots(), lotId));
     projectPublicSearchResult.setSearchCriteria(searchCriteria);
-    projectPublicSearchResult.setResults(convertResults(results));
+    projectPublicSearchResult.setResults(convertResults(results.getHits()));
     projectPublicSearchResult.setTotalResults((int) results.getTotalHits());
-    projectPublicSearchResult.setLinks(generateLinks(keyword, page, pageSize, (int) results.getTotalHits()));
+    if (cursor != null) {
+      var nextCursor = results.getHits().size() < pageSize ? null : encodeCursor(results.getLastSortValues());
+      projectPublicSearchResult.setLinks(generateCursorLinks(agreementId, keyword, pageSize, cursor, nextCursor));
+    } else {
+      projectPublicSearchResult.setLinks(generateLinks(agreementId, keyword, page, pageSize, (int) results.getTotalHits()));
+    }
   return projectPublicSearchResult;
   }
   public static <T> Predicate<T> distinctByKey(Function<? super T, Object> keyExtractor)
@@ -827,31 +859,85 @@ public class ProcurementProjectService {
     Map<Object, Boolean> map = new ConcurrentHashMap<>();
     return t -> map.putIfAbsent(keyExtractor.apply(t), Boolean.TRUE) == null;
   }
-  private List<ProjectLots> getProjectLots(SearchHits<ProcurementEventSearch> countResults, String lotId) {
-    Map<String, String> lotAndDescription = countResults.stream().map(SearchHit::getContent).filter(distinctByKey(project -> project.getLot())).collect(Collectors.toMap(ProcurementEventSearch::getLot, ProcurementEventSearch::getLotDescription));
+  /**
+   * OpenSearch answers public searches unless the local index is the primary one, or OpenSearch
+   * can't be reached and there is a local index to fall back to
+   */
+  private ProjectSearchPage searchProjects(String agreementId, String keyword, String lotId, ProjectFilter projectFilter,
+                                           int page, int pageSize, List<Object> searchAfter) {
+    var localIndex = localProjectSearchIndex.orElse(null);
+    if (localIndex != null && localIndex.isPrimary()) {
+      return localIndex.search(agreementId, keyword, lotId, projectFilter, page, pageSize, searchAfter);
+    }
+    try {
+      return searchOpenSearch(agreementId, keyword, lotId, projectFilter, page, pageSize, searchAfter);
+    } catch (DataAccessResourceFailureException e) {
+      if (localIndex == null) {
+        throw e;
+      }
+      log.warn("OpenSearch unavailable, searching the local index instead: " + e.getMessage());
+      return localIndex.search(agreementId, keyword, lotId, projectFilter, page, pageSize, searchAfter);
+    }
+  }
+
+  private ProjectSearchPage searchOpenSearch(String agreementId, String keyword, String lotId, ProjectFilter projectFilter,
+                                             int page, int pageSize, List<Object> searchAfter) {
+    NativeSearchQuery searchQuery = getSearchQuery(agreementId, keyword, PageRequest.of(page,pageSize), lotId, projectFilter);
+    if (searchAfter != null) {
+      searchQuery.setSearchAfter(searchAfter);
+    }
+    NativeSearchQuery searchCountQuery = getLotCount(agreementId, keyword,lotId, projectFilter);
+    // the page and the lot facets in one round trip
+    List<SearchHits<ProcurementEventSearch>> searchResults = elasticsearchOperations.multiSearch(List.of(searchQuery, searchCountQuery), ProcurementEventSearch.class, ProjectSearchIndexService.ALIAS_COORDINATES);
+    SearchHits<ProcurementEventSearch> results = searchResults.get(0);
+    var hits = results.getSearchHits();
+    return new ProjectSearchPage(hits.stream().map(SearchHit::getContent).toList(), results.getTotalHits(),
+        hits.isEmpty() ? null : hits.get(hits.size() - 1).getSortValues(), getLotCounts(searchResults.get(1)));
+  }
+
+  private static List<LotCount> getLotCounts(SearchHits<ProcurementEventSearch> countResults) {
     Aggregations aggregations = (Aggregations) countResults.getAggregations().aggregations();
-     Terms terms = (Terms) aggregations.get(COUNT_AGGREGATION);
-     return terms.getBuckets().stream().map(bucket -> {
-       int lotnumber = Character.getNumericValue(bucket.getKeyAsString().charAt(bucket.getKeyAsString().length() - 1));
+    Terms terms = (Terms) aggregations.get(COUNT_AGGREGATION);
+    return terms.getBuckets().stream()
+        .map(bucket -> new LotCount(bucket.getKeyAsString(), bucket.getDocCount(), getLotDescription(bucket)))
+        .collect(Collectors.toList());
+  }
+
+  private List<ProjectLots> getProjectLots(List<LotCount> lots, String lotId) {
+     return lots.stream().map(lot -> {
+       int lotnumber = Character.getNumericValue(lot.getLot().charAt(lot.getLot().length() - 1));
        ProjectLots projectLots= new ProjectLots();
        projectLots.setId(lotnumber);
-        projectLots.setCount((int)bucket.getDocCount());
-        projectLots.setText(lotAndDescription.get(bucket.getKeyAsString()));
-        projectLots.setSelected(bucket.getKeyAsString().equalsIgnoreCase(lotId));
+        projectLots.setCount((int)lot.getCount());
+        projectLots.setText(lot.getLotDescription());
+        projectLots.setSelected(lot.getLot().equalsIgnoreCase(lotId));
        return projectLots;
      }).collect(Collectors.toList());
   }
 
-  private  NativeSearchQuery getSearchQuery (String keyword, PageRequest pageRequest, String lotId, ProjectFilter projectFilter) {
-    NativeSearchQueryBuilder searchQueryBuilder = getFilterQuery(lotId,projectFilter, keyword);
-   searchQueryBuilder.withPageable(PageRequest.of(pageRequest.getPageNumber()-1, pageRequest.getPageSize(), Sort.by(Sort.Direction.DESC, "lastUpdated")));
+  private static String getLotDescription(Terms.Bucket bucket) {
+    TopHits lot = bucket.getAggregations().get(LOT_AGGREGATION);
+    var hits = lot.getHits().getHits();
+    return hits.length == 0 ? null : (String) hits[0].getSourceAsMap().get(LOT_DESCRIPTION);
+  }
+
+  private  NativeSearchQuery getSearchQuery (String agreementId, String keyword, PageRequest pageRequest, String lotId, ProjectFilter projectFilter) {
+    NativeSearchQueryBuilder searchQueryBuilder = getFilterQuery(agreementId, lotId,projectFilter, keyword);
+   // projectId breaks ties so the order is stable, which search_after relies on
+   searchQueryBuilder.withPageable(PageRequest.of(pageRequest.getPageNumber()-1, pageRequest.getPageSize(), Sort.by(Sort.Direction.DESC, "lastUpdated", PROJECT_ID)));
    NativeSearchQuery searchQuery = searchQueryBuilder.build();
     return searchQuery;
   }
 
-  private static NativeSearchQueryBuilder getFilterQuery(String lotId, ProjectFilter projectFilter, String keyword) {
+  /**
+   * Documents of the index built before the split by agreement have no agreementId and match every
+   * agreement, as they did then, until the first rebuild replaces that index in the read alias
+   */
+  private static NativeSearchQueryBuilder getFilterQuery(String agreementId, String lotId, ProjectFilter projectFilter, String keyword) {
     NativeSearchQueryBuilder searchQueryBuilder = new NativeSearchQueryBuilder();
     BoolQueryBuilder boolQuery = boolQuery();
+    boolQuery.filter(boolQuery().should(QueryBuilders.termQuery(AGREEMENT_ID, agreementId))
+        .should(boolQuery().mustNot(QueryBuilders.existsQuery(AGREEMENT_ID))));
     BoolQueryBuilder statusboolQuery = boolQuery();
     if(projectFilter !=null && projectFilter.getName().equalsIgnoreCase(STATUS)) {
       projectFilter.getOptions().stream().filter(projectFilterOption -> projectFilterOption.getSelected()).forEach(projectFilterOption -> {
@@ -867,23 +953,24 @@ public class ProcurementProjectService {
               .fuzziness(Fuzziness.ONE)
               .type(MultiMatchQueryBuilder.Type.BEST_FIELDS));
     }
-    if(projectFilter !=null || lotId !=null || keyword !=null )
-    {
-      searchQueryBuilder.withQuery(boolQuery);
-    }
+    searchQueryBuilder.withQuery(boolQuery);
     return searchQueryBuilder;
   }
 
-  private  NativeSearchQuery getLotCount (String keyword, String lotId, ProjectFilter projectFilter) {
-    NativeSearchQueryBuilder searchQueryBuilder = getFilterQuery(null,projectFilter, keyword);
-    searchQueryBuilder.withPageable(PageRequest.of(0, (int) searchProjectRepo.count()));
-      searchQueryBuilder.withAggregations(AggregationBuilders.terms(COUNT_AGGREGATION).field("lot.raw").size(100));
+  /**
+   * Facets only (size 0), each lot bucket carries one of its documents for the lot description
+   */
+  private  NativeSearchQuery getLotCount (String agreementId, String keyword, String lotId, ProjectFilter projectFilter) {
+    NativeSearchQueryBuilder searchQueryBuilder = getFilterQuery(agreementId, null,projectFilter, keyword);
+    searchQueryBuilder.withMaxResults(0);
+    searchQueryBuilder.withAggregations(AggregationBuilders.terms(COUNT_AGGREGATION).field("lot.raw").size(100)
+        .subAggregation(AggregationBuilders.topHits(LOT_AGGREGATION).size(1).fetchSource(LOT_DESCRIPTION, null)));
     NativeSearchQuery searchQuery = searchQueryBuilder.build();
     return searchQuery;
   }
-  private List<ProjectPublicSearchSummary> convertResults(SearchHits<ProcurementEventSearch> results)
+  private List<ProjectPublicSearchSummary> convertResults(List<ProcurementEventSearch> results)
   {
-    return results.stream().map(SearchHit::getContent).map(object ->
+    return results.stream().map(object ->
     {
       ProjectPublicSearchSummary projectPublicSearchSummary=new ProjectPublicSearchSummary();
       projectPublicSearchSummary.setProjectId(object.getProjectId());
@@ -901,34 +988,112 @@ public class ProcurementProjectService {
 
   }
 
-  private Links1 generateLinks(String keyword, int page, int pageSize, int totalsize)
+  private Links1 generateLinks(String agreementId, String keyword, int page, int pageSize, int totalsize)
   {
       int last = (int) Math.ceil((double)totalsize/pageSize);
     int next = page < last ? page + 1 : 0;
     int previous = page <= 1 ? 0 : page - 1;
     keyword = UriUtils.encode(keyword,"UTF-8");
+    agreementId = UriUtils.encode(agreementId,"UTF-8");
      Links1 links1= new Links1();
-     links1.setFirst(URI.create(String.format(SEARCH_URI,keyword,1,pageSize)));
-     links1.setLast(last ==0 ? URI.create("") : URI.create(String.format(SEARCH_URI,keyword,last,pageSize)));
-     links1.setNext(next == 0 ? URI.create("") : URI.create(String.format(SEARCH_URI,keyword,next,pageSize)));
-     links1.setPrev(previous == 0 ? URI.create("") : URI.create(String.format(SEARCH_URI,keyword,previous,pageSize)));
-     links1.setSelf(URI.create(String.format(SEARCH_URI,keyword,page,pageSize)));
+     links1.setFirst(URI.create(String.format(SEARCH_URI,agreementId,keyword,1,pageSize)));
+     links1.setLast(last ==0 ? URI.create("") : URI.create(String.format(SEARCH_URI,agreementId,keyword,last,pageSize)));
+     links1.setNext(next == 0 ? URI.create("") : URI.create(String.format(SEARCH_URI,agreementId,keyword,next,pageSize)));
+     links1.setPrev(previous == 0 ? URI.create("") : URI.create(String.format(SEARCH_URI,agreementId,keyword,previous,pageSize)));
+     links1.setSelf(URI.create(String.format(SEARCH_URI,agreementId,keyword,page,pageSize)));
+    return links1;
+
+  }
+  private Links1 generateCursorLinks(String agreementId, String keyword, int pageSize, String cursor, String nextCursor)
+  {
+    keyword = UriUtils.encode(keyword,"UTF-8");
+    agreementId = UriUtils.encode(agreementId,"UTF-8");
+    Links1 links1= new Links1();
+    links1.setFirst(URI.create(String.format(SEARCH_CURSOR_URI,agreementId,keyword,pageSize,"")));
+    links1.setLast(URI.create(""));
+    links1.setNext(nextCursor == null ? URI.create("") : URI.create(String.format(SEARCH_CURSOR_URI,agreementId,keyword,pageSize,nextCursor)));
+    links1.setPrev(URI.create(""));
+    links1.setSelf(URI.create(String.format(SEARCH_CURSOR_URI,agreementId,keyword,pageSize,UriUtils.encode(cursor,"UTF-8"))));
     return links1;
+  }
+
+  /**
+   * Opaque to clients: the sort values (lastUpdated, projectId) of the last result of a page
+   */
+  private static String encodeCursor(List<Object> sortValues) {
+    var values = sortValues.stream().map(String::valueOf).collect(Collectors.joining(":"));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(values.getBytes(StandardCharsets.UTF_8));
+  }
 
+  private static List<Object> decodeCursor(String cursor) {
+    try {
+      var values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+      if (values.length == 2) {
+        return List.of(Long.parseLong(values[0]), Long.parseLong(values[1]));
+      }
+    } catch (IllegalArgumentException e) {
+      // not one of ours, reported below
+    }
+    throw new IllegalArgumentException("Invalid cursor: " + cursor);
   }
+
   
   /**
-   * Download all oppertunities data from s3
-   * 
+   * Metadata (ETag, Last-Modified, length and encoding) of the agreement's oppertunities data in s3,
+   * the first configured agreement's when none is given
+   */
+  public ObjectMetadata getProjectsDataMetadata(final String agreementId) {
+    try {
+      return tendersS3Client.getObjectMetadata(tendersS3Service.getCredentials().getBucketName(),
+          getProjectsDataKey(agreementId));
+    } catch (AmazonClientException exception) {
+      log.error("Exception while reading the projects data metadata from S3: "
+          + exception.getMessage());
+      throw new ResourceNotFoundException("Failed to download oppertunity data. File not found");
+    }
+  }
+
+  /**
+   * Download the agreement's oppertunities data from s3, the first configured agreement's when none
+   * is given
+   *
+   * @param eTag S3 ETag the stored file must still have, <code>null</code> for any
+   * @param rangeStart first byte of the stored file to download, <code>null</code> for all of it
+   * @param rangeEnd last byte (inclusive) of the stored file to download
+   * @param decompress whether to inflate a gzip encoded file
+   * @return the content, <code>null</code> if the stored file no longer has the ETag
    */
-  public InputStream downloadProjectsData() {
+  public InputStream downloadProjectsData(final String agreementId, final String eTag,
+      final Long rangeStart, final Long rangeEnd, final boolean decompress) {
     try {
-      S3Object tendersS3Object = tendersS3Client
-          .getObject(tendersS3Service.getCredentials().getBucketName(), CSV_FILE_PREFIX + CSV_FILE_NAME);
+      var request = new GetObjectRequest(tendersS3Service.getCredentials().getBucketName(),
+          getProjectsDataKey(agreementId));
+      if (eTag != null) {
+        request.setMatchingETagConstraints(List.of(eTag));
+      }
+      if (rangeStart != null) {
+        request.setRange(rangeStart, rangeEnd);
+      }
+      S3Object tendersS3Object = tendersS3Client.getObject(request);
+      if (tendersS3Object == null) {
+        // the ETag constraint was not met
+        return null;
+      }
+      if (decompress) {
+        return new GZIPInputStream(tendersS3Object.getObjectContent());
+      }
       return tendersS3Object.getObjectContent();
     } catch (Exception exception) {
       log.error("Exception while downloading the projects data from S3: " + exception.getMessage());
       throw new ResourceNotFoundException("Failed to download oppertunity data. File not found");
     }
   }
+
+  private String getProjectsDataKey(final String agreementId) {
+    var agreement = (agreementId == null
+        ? opportunityExportConfig.getAgreements().stream().findFirst()
+        : opportunityExportConfig.getAgreement(agreementId)).orElseThrow(
+            () -> new ResourceNotFoundException("No oppertunity data for agreement " + agreementId));
+    return ProjectsCSVGenerationScheduledTask.getCsvKey(agreement);
+  }
 }
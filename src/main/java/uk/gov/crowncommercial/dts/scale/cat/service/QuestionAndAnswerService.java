@@ -17,6 +17,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.generated.QandA;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.QandAWithProjectDetails;
 import uk.gov.crowncommercial.dts.scale.cat.repo.QuestionAndAnswerRepo;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 
 /**
  *
@@ -33,6 +34,7 @@ public class QuestionAndAnswerService {
   private final JaggaerService jaggaerService;
   private final RetryableTendersDBDelegate retryableTendersDBDelegate;
   private final AgreementsService agreementsService;
+  private final OcdsRecordSnapshotService ocdsRecordSnapshotService;
   public static final String JAGGAER_USER_NOT_FOUND = "Jaggaer user not found";
   public static final String Q_AND_A_NOT_FOUND = "QuestionAndAnswer not found by this id %s";
 
@@ -41,6 +43,7 @@ public class QuestionAndAnswerService {
     var procurementEvent = validationService.validateProjectAndEventIds(projectId, eventId);
     var user = userService.resolveBuyerUserProfile(profile)
         .orElseThrow(() -> new AuthorisationFailureException(JAGGAER_USER_NOT_FOUND));
+    ocdsRecordSnapshotService.invalidate(projectId);
 
     var questionAndAnswer = QuestionAndAnswer.builder().question(qAndA.getQuestion())
         .answer(qAndA.getAnswer()).timestamps(Timestamps.createTimestamps(user.getEmail()))
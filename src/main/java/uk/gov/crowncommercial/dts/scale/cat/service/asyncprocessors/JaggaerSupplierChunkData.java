@@ -0,0 +1,23 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.asyncprocessors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Supplier;
+
+import java.util.List;
+
+/**
+ * One batch of a chunked supplier push, see {@link JaggaerSupplierPush}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JaggaerSupplierChunkData {
+    private Integer projectId;
+    private Integer eventId;
+    private String pushId;
+    private int chunkIndex;
+    private int chunkCount;
+    private List<Supplier> suppliers;
+}
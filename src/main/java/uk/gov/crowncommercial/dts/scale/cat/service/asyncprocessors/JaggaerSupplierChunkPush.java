@@ -0,0 +1,90 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.asyncprocessors;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
+import uk.gov.crowncommercial.dts.scale.cat.exception.ResourceNotFoundException;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.processors.SupplierStoreFactory;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.RetryBackoff;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.RetryableException;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Appends one batch of suppliers to a Jaggaer event. Each batch is a task of its own, so a failed batch
+ * is retried on its own rather than restarting the whole push.
+ */
+@RequiredArgsConstructor
+@Component("JaggaerSupplierChunkPush")
+@Slf4j
+public class JaggaerSupplierChunkPush implements AsyncConsumer<JaggaerSupplierChunkData> {
+    private final RetryableTendersDBDelegate dbDelegate;
+    private final SupplierStoreFactory factory;
+    private final ExperimentalFlagsConfig experimentalFlags;
+    private final JaggaerSupplierPushTracker pushTracker;
+
+    @Override
+    @Transactional
+    public String accept(String principal, JaggaerSupplierChunkData data) {
+        // a later push has replaced the suppliers of the event, this chunk's would be appended to them
+        if (pushTracker.isSuperseded(data)) {
+            log.info("Skipped chunk {} of {} to project {}, event {}, push {} was superseded", data.getChunkIndex() + 1,
+                    data.getChunkCount(), data.getProjectId(), data.getEventId(), data.getPushId());
+            return "Skipped chunk " + (data.getChunkIndex() + 1) + "/" + data.getChunkCount() + ", push "
+                    + data.getPushId() + " was superseded";
+        }
+        ProcurementEvent event = dbDelegate.findProcurementEventById(data.getEventId()).orElseThrow(
+                () -> new ResourceNotFoundException("Procurement event " + data.getEventId() + " not found"));
+        JaggaerSupplierPush.storeSuppliers(factory.getStore(event), event, data.getSuppliers(), false, principal);
+        log.info("Successfully pushed chunk {} of {} with {} suppliers to project {}, event {}", data.getChunkIndex() + 1,
+                data.getChunkCount(), data.getSuppliers().size(), data.getProjectId(), event.getEventID());
+        return "Pushed chunk " + (data.getChunkIndex() + 1) + "/" + data.getChunkCount() + " of "
+                + data.getSuppliers().size() + " suppliers to Jaggaer";
+    }
+
+    @Override
+    public void onFinished(String principal, JaggaerSupplierChunkData data, boolean succeeded) {
+        pushTracker.chunkFinished(data);
+    }
+
+    @Override
+    public boolean canRetry(String errorCode, RetryableException re) {
+        return re.getErrorCode().equals("-998");
+    }
+
+    @Override
+    public int getMaxAttempts() {
+        return JaggaerSupplierPush.MAX_ATTEMPTS;
+    }
+
+    @Override
+    public RetryBackoff getRetryBackoff() {
+        return JaggaerSupplierPush.RETRY_BACKOFF;
+    }
+
+    @Override
+    public String getIdentifier(JaggaerSupplierChunkData data) {
+        return data.getProjectId() + "/" + data.getEventId() + "#" + data.getPushId() + "#" + (data.getChunkIndex() + 1)
+                + "/" + data.getChunkCount();
+    }
+
+    @Override
+    public String getTaskName() {
+        return "JaggaerSupplierChunkPush";
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.LOW;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return experimentalFlags.getAsyncJaggaerSupplierChunkConcurrency();
+    }
+}
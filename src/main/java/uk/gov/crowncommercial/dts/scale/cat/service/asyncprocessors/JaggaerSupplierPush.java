@@ -1,22 +1,30 @@
 package uk.gov.crowncommercial.dts.scale.cat.service.asyncprocessors;
 
+import com.google.common.collect.Lists;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
 import uk.gov.crowncommercial.dts.scale.cat.exception.JaggaerApplicationException;
+import uk.gov.crowncommercial.dts.scale.cat.exception.ResourceNotFoundException;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Supplier;
 import uk.gov.crowncommercial.dts.scale.cat.processors.SupplierStore;
 import uk.gov.crowncommercial.dts.scale.cat.processors.SupplierStoreFactory;
 import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncExecutor;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.RetryBackoff;
 import uk.gov.crowncommercial.dts.scale.cat.processors.async.RetryableException;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
 import uk.gov.crowncommercial.dts.scale.cat.service.EventService;
 import uk.gov.crowncommercial.dts.scale.cat.service.SupplierService;
 
 import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import static java.util.Map.entry;
@@ -25,10 +33,16 @@ import static java.util.Map.entry;
 @Component("JaggaerSupplierPush")
 @Slf4j
 public class JaggaerSupplierPush implements AsyncConsumer<JaggaerSupplierEventData> {
+    static final RetryBackoff RETRY_BACKOFF = new RetryBackoff(Duration.ofMinutes(1), 2, Duration.ofMinutes(30));
+    static final int MAX_ATTEMPTS = 8;
+
     private final EventService eventService;
     private final RetryableTendersDBDelegate dbDelegate;
     private final SupplierService supplierService;
     private final SupplierStoreFactory factory;
+    private final ExperimentalFlagsConfig experimentalFlags;
+    private final AsyncExecutor asyncExecutor;
+    private final JaggaerSupplierPushTracker pushTracker;
 
     @Override
     @Transactional
@@ -51,16 +65,15 @@ public class JaggaerSupplierPush implements AsyncConsumer<JaggaerSupplierEventDa
         }
 
         if(null != suppliers) {
-            Map<String, String> options = Map.ofEntries(entry("store", "jaggaer"));
             SupplierStore store = factory.getStore(event);
-            try {
-                store.storeSuppliers(event, suppliers, data.getOverWrite(), principal, options);
-            }catch(JaggaerApplicationException jae){
-                if(jae.getMessage().contains("Code: [-998]")){
-                    throw new RetryableException("-998", jae.getMessage(), jae);
-                }else
-                    throw jae;
+            // whether chunked or not, this push replaces the chunks of earlier ones still to be stored
+            String pushId = String.valueOf(Instant.now().toEpochMilli());
+            pushTracker.cancelEarlierPushes(event.getId(), pushId);
+            int chunkSize = experimentalFlags.getAsyncJaggaerSupplierChunkSize();
+            if (chunkSize > 0 && suppliers.size() > chunkSize) {
+                return pushInChunks(principal, data, event, store, suppliers, chunkSize, pushId);
             }
+            storeSuppliers(store, event, suppliers, data.getOverWrite(), principal);
             log.info("Successfully pushed {} suppliers to project {}, event {}", suppliers.size(), project.getId(), event.getEventID());
             return "Pushed " + suppliers.size() + " suppliers to Jaggaer";
         }else{
@@ -70,19 +83,45 @@ public class JaggaerSupplierPush implements AsyncConsumer<JaggaerSupplierEventDa
     }
 
 
-    @SneakyThrows
-    private ProcurementEvent getEvent(JaggaerSupplierEventData data) {
-        var event = dbDelegate.findProcurementEventById(data.getEventId()).orElse(null);
-        if (null != event)
-            return event;
-
-        int i = 0;
-        while (null == event && i < 6) {
-            Thread.sleep(1000);
-            i++;
-            event = dbDelegate.findProcurementEventById(data.getEventId()).orElse(null);
+    /**
+     * Pushes the first chunk here, as with overwrite it resets the suppliers of the event, then hands the
+     * remaining chunks to {@link JaggaerSupplierChunkPush} tasks which append them concurrently and are
+     * retried independently. The chunks of an earlier push still pending are aborted, and the outcome of
+     * this task is replaced by the one of its chunks once they are all done, see {@link JaggaerSupplierPushTracker}.
+     */
+    private String pushInChunks(String principal, JaggaerSupplierEventData data, ProcurementEvent event,
+                                SupplierStore store, List<Supplier> suppliers, int chunkSize, String pushId) {
+        List<List<Supplier>> chunks = Lists.partition(suppliers, chunkSize);
+        storeSuppliers(store, event, chunks.get(0), data.getOverWrite(), principal);
+        for (int i = 1; i < chunks.size(); i++) {
+            var chunkData = new JaggaerSupplierChunkData(data.getProjectId(), event.getId(), pushId, i, chunks.size(),
+                    new ArrayList<>(chunks.get(i)));
+            asyncExecutor.submit(principal, JaggaerSupplierChunkPush.class, chunkData,
+                    JaggaerSupplierPushTracker.RECORD_TYPE, JaggaerSupplierPushTracker.getChunkRecordId(event.getId(), pushId, i));
+        }
+        log.info("Pushed the first of {} chunks of {} suppliers to project {}, event {}, push {}", chunks.size(),
+                suppliers.size(), data.getProjectId(), event.getEventID(), pushId);
+        return "Pushed " + chunks.get(0).size() + " suppliers to Jaggaer, " + (chunks.size() - 1)
+                + " chunks of push " + pushId + " pending";
+    }
+
+    static void storeSuppliers(SupplierStore store, ProcurementEvent event, List<Supplier> suppliers, boolean overWrite,
+                               String principal) {
+        Map<String, String> options = Map.ofEntries(entry("store", "jaggaer"));
+        try {
+            store.storeSuppliers(event, suppliers, overWrite, principal, options);
+        }catch(JaggaerApplicationException jae){
+            if(jae.getMessage().contains("Code: [-998]")){
+                throw new RetryableException("-998", jae.getMessage(), jae);
+            }else
+                throw jae;
         }
-        return event;
+    }
+
+    private ProcurementEvent getEvent(JaggaerSupplierEventData data) {
+        // tasks are dispatched after the submitting transaction commits, so the event is visible here
+        return dbDelegate.findProcurementEventById(data.getEventId()).orElseThrow(
+                () -> new ResourceNotFoundException("Procurement event " + data.getEventId() + " not found"));
     }
 
     @Override
@@ -90,6 +129,16 @@ public class JaggaerSupplierPush implements AsyncConsumer<JaggaerSupplierEventDa
         return re.getErrorCode().equals("-998");
     }
 
+    @Override
+    public int getMaxAttempts() {
+        return MAX_ATTEMPTS;
+    }
+
+    @Override
+    public RetryBackoff getRetryBackoff() {
+        return RETRY_BACKOFF;
+    }
+
     @Override
     public String getIdentifier(JaggaerSupplierEventData data) {
         return data.getEventType() + ":" + data.getProjectId() + "/" + data.getEventId();
@@ -99,4 +148,15 @@ public class JaggaerSupplierPush implements AsyncConsumer<JaggaerSupplierEventDa
     public String getTaskName() {
         return "JaggaerSupplierPush";
     }
+
+    @Override
+    public TaskPriority getPriority() {
+        // bulk pushes must not hold up the short running tasks
+        return TaskPriority.LOW;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return experimentalFlags.getAsyncJaggaerSupplierPushConcurrency();
+    }
 }
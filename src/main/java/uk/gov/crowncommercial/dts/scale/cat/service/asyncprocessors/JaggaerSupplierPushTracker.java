@@ -0,0 +1,88 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.asyncprocessors;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.Task;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.TaskEntityService;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the chunks of a supplier push, see {@link JaggaerSupplierPush}. The chunk tasks of a push are
+ * submitted for the records {@code <event id>#<push id>#<chunk index>}, so that each push has its own tasks.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JaggaerSupplierPushTracker {
+    static final String RECORD_TYPE = "ProcurementEvent";
+    private static final String PUSH_RUNNER = "JaggaerSupplierPush";
+    private static final String CHUNK_RUNNER = "JaggaerSupplierChunkPush";
+
+    private final TaskRepo taskRepo;
+    private final TaskEntityService taskEntityService;
+
+    static String getChunkRecordId(Integer eventId, String pushId, int chunkIndex) {
+        return getPushRecordIdPrefix(eventId, pushId) + chunkIndex;
+    }
+
+    private static String getPushRecordIdPrefix(Integer eventId, String pushId) {
+        return eventId + "#" + pushId + "#";
+    }
+
+    /**
+     * Aborts the chunks of the earlier pushes to the event which are not done yet, as the new push replaces them
+     */
+    public void cancelEarlierPushes(Integer eventId, String pushId) {
+        int aborted = taskEntityService.abortUnfinished(CHUNK_RUNNER, RECORD_TYPE, eventId + "#",
+                "Aborted. Superseded by push " + pushId);
+        if (aborted > 0) {
+            log.info("Aborted {} chunks of earlier supplier pushes to event {}", aborted, eventId);
+        }
+    }
+
+    /**
+     * @return true if the chunk's push was superseded by a later push to the event, so the chunk must not be stored
+     */
+    public boolean isSuperseded(JaggaerSupplierChunkData data) {
+        return taskRepo.findByRecordTypeAndRecordIdOrderByIdDesc(RECORD_TYPE,
+                        getChunkRecordId(data.getEventId(), data.getPushId(), data.getChunkIndex())).stream()
+                .filter(chunk -> CHUNK_RUNNER.equals(chunk.getTaskExecutor())).findFirst()
+                .map(chunk -> Task.ABORTED == chunk.getStatus()).orElse(false);
+    }
+
+    /**
+     * Records the outcome of the push on its parent task once all its chunks are done
+     */
+    public void chunkFinished(JaggaerSupplierChunkData data) {
+        List<TaskEntity> chunks = taskRepo.findByTaskExecutorAndRecordTypeAndRecordIdStartingWith(CHUNK_RUNNER,
+                RECORD_TYPE, getPushRecordIdPrefix(data.getEventId(), data.getPushId()));
+        // the first chunk is pushed by the parent task itself
+        if (chunks.size() < data.getChunkCount() - 1 || chunks.stream().anyMatch(JaggaerSupplierPushTracker::isPending)) {
+            return;
+        }
+        String failed = chunks.stream().filter(chunk -> Task.COMPLETED != chunk.getStatus())
+                .map(TaskEntity::getRecordId).mapToInt(id -> Integer.parseInt(id.substring(id.lastIndexOf('#') + 1)) + 1)
+                .sorted().mapToObj(String::valueOf).collect(Collectors.joining(", "));
+        Instant scheduledOn = chunks.stream().map(TaskEntity::getScheduledOn).min(Comparator.naturalOrder()).orElseThrow();
+        String response = failed.isEmpty()
+                ? "Pushed all " + data.getChunkCount() + " chunks of push " + data.getPushId() + " to Jaggaer"
+                : "Push " + data.getPushId() + " to Jaggaer incomplete, chunks " + failed + " of "
+                        + data.getChunkCount() + " failed";
+        if (taskEntityService.recordOutcome(RECORD_TYPE + data.getEventId() + PUSH_RUNNER, scheduledOn,
+                failed.isEmpty() ? Task.COMPLETED : Task.FAILED, response)) {
+            log.info("Supplier push {} to project {}, event {} done: {}", data.getPushId(), data.getProjectId(),
+                    data.getEventId(), response);
+        }
+    }
+
+    private static boolean isPending(TaskEntity chunk) {
+        return Task.SCHEDULED == chunk.getStatus() || Task.INFLIGHT == chunk.getStatus();
+    }
+}
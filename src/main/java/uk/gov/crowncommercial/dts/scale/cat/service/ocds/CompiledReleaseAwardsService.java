@@ -15,34 +15,36 @@ import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.CompanyData;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.RfxSetting;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Supplier;
-import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
-import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CompiledReleaseAwardsService extends AbstractOcdsService{
-    private final RetryableTendersDBDelegate tendersDBDelegate;
-    private final ConclaveService conclaveService;
     private final ModelMapper modelMapper;
+    private final OcdsExecutor ocdsExecutor;
     public MapperResponse populateGeneral(Record1 re, ProjectQuery pq) {
         log.debug("populating General");
         ProcurementProject pp = pq.getProject();
 
-        CompletableFuture cf = CompletableFuture.runAsync(()-> {
+        CompletableFuture cf = ocdsExecutor.runAsync(()-> {
             ExportRfxResponse rfxResponse = getLatestRFXWithSuppliers(pq);
             RfxSetting rfxSetting = rfxResponse.getRfxSetting();
 
             if(EventStatusHelper.isAwarded(rfxSetting)){
                 List<Supplier> awardedSuppliers = rfxResponse.getSuppliersList().getSupplier().stream().filter(f -> 3 == f.getStatusCode()).toList();
+                OcdsFetchPlan plan = pq.getFetchPlan();
+                Map<Integer, OrganisationMapping> orgMappings = plan.getOrganisationMappings(awardedSuppliers.stream()
+                        .map(s -> s.getCompanyData().getId()).collect(Collectors.toSet()));
 
                 Award2 award = OcdsHelper.getAward(re);
                 award.setTitle(pp.getProjectName());
-                award.setSuppliers(awardedSuppliers.stream().map(this::convertSuppliers).toList());
+                award.setSuppliers(awardedSuppliers.stream().map(s -> convertSuppliers(s, orgMappings, plan)).toList());
                 award.setDescription(null);
                 award.setDate(rfxSetting.getAwardDate());
                 award.setValue(null);
@@ -51,12 +53,12 @@ public class CompiledReleaseAwardsService extends AbstractOcdsService{
         return new MapperResponse(re, cf);
     }
 
-    private OrganizationReference1 convertSuppliers(Supplier supplier) {
+    private OrganizationReference1 convertSuppliers(Supplier supplier, Map<Integer, OrganisationMapping> orgMappings, OcdsFetchPlan plan) {
         CompanyData companyData = supplier.getCompanyData();
-        Optional<OrganisationMapping> om = tendersDBDelegate.findOrganisationMappingByExternalOrganisationId(companyData.getId());
+        Optional<OrganisationMapping> om = Optional.ofNullable(orgMappings.get(companyData.getId()));
         if (om.isPresent()) {
             OrganisationMapping organisationMapping = om.get();
-            Optional<OrganisationProfileResponseInfo> optOrgProfile = conclaveService.getOrganisationIdentity(organisationMapping.getOrganisationId());
+            Optional<OrganisationProfileResponseInfo> optOrgProfile = plan.getOrganisationIdentity(organisationMapping.getOrganisationId());
             if (optOrgProfile.isPresent()) {
                 OrganisationProfileResponseInfo orgProfile = optOrgProfile.get();
                 return modelMapper.map(orgProfile, OrganizationReference1.class);
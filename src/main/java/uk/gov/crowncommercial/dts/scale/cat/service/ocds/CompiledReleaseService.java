@@ -15,7 +15,6 @@ import uk.gov.crowncommercial.dts.scale.cat.model.generated.*;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Project;
 import uk.gov.crowncommercial.dts.scale.cat.service.AgreementsService;
-import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
 import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
 
 import java.time.OffsetDateTime;
@@ -32,8 +31,7 @@ import java.util.concurrent.CompletableFuture;
 public class CompiledReleaseService{
     private final AgreementsService agreementsService;
     private final ModelMapper modelMapper;
-
-    private final ConclaveService conclaveService;
+    private final OcdsExecutor ocdsExecutor;
 
     public MapperResponse populate(Record1 record, ProjectQuery query) {
         log.debug("populating basic details");
@@ -66,7 +64,7 @@ public class CompiledReleaseService{
         release.setParties(new ArrayList<>());
         ProcurementProject pp = pq.getProject();
 
-        CompletableFuture cf = CompletableFuture.runAsync(()-> {
+        CompletableFuture cf = ocdsExecutor.runAsync(()-> {
             Collection<LotSupplier> suppliers = agreementsService.getLotSuppliers(pp.getCaNumber(), pp.getLotNumber());
             List<Organization1> parties = suppliers.stream()
                     .map(OcdsConverter::convertSupplierToOrg).toList();
@@ -83,8 +81,8 @@ public class CompiledReleaseService{
         OrganisationMapping om =  pp.getOrganisationMapping();
         Release release = OcdsHelper.getRelease(record);
         if(null != om) {
-            CompletableFuture cf = CompletableFuture.runAsync(() -> {
-                Optional<OrganisationProfileResponseInfo> optOrgProfile = conclaveService.getOrganisationIdentity(om.getOrganisationId());
+            CompletableFuture cf = ocdsExecutor.runAsync(() -> {
+                Optional<OrganisationProfileResponseInfo> optOrgProfile = pq.getFetchPlan().getOrganisationIdentity(om.getOrganisationId());
                 if (optOrgProfile.isPresent()) {
                     OrganisationProfileResponseInfo orgProfile = optOrgProfile.get();
                     OrganizationReference1 orgRef = modelMapper.map(orgProfile, OrganizationReference1.class);
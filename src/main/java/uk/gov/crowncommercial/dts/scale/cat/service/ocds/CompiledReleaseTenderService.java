@@ -16,7 +16,6 @@ import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.CompanyData;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.RfxSetting;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Supplier;
-import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
 import uk.gov.crowncommercial.dts.scale.cat.service.AgreementsService;
 import uk.gov.crowncommercial.dts.scale.cat.service.QuestionAndAnswerService;
 
@@ -25,6 +24,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -36,8 +36,8 @@ import java.util.stream.Collectors;
 public class CompiledReleaseTenderService extends AbstractOcdsService {
     private final AgreementsService agreementsService;
     private final OcdsConverter ocdsConverter;
-    private final RetryableTendersDBDelegate tendersDBDelegate;
     private final QuestionAndAnswerService questionAndAnswerService;
+    private final OcdsExecutor ocdsExecutor;
 
 
     public MapperResponse populateGeneral(Record1 re, ProjectQuery pq) {
@@ -53,7 +53,7 @@ public class CompiledReleaseTenderService extends AbstractOcdsService {
         tender.setMinValue(getMinValue(pp));
         tender.setSubmissionMethod(Arrays.asList(SubmissionMethod.ELECTRONICSUBMISSION));
 
-        CompletableFuture cf = CompletableFuture.runAsync(() -> {
+        CompletableFuture cf = ocdsExecutor.runAsync(() -> {
             populateStatusAndPeriod(tender, pp, pq);
             populateLots(pq, tender);
         });
@@ -100,20 +100,20 @@ public class CompiledReleaseTenderService extends AbstractOcdsService {
 
         Tender1 tender = OcdsHelper.getTender(re);
 
-        CompletableFuture cf = CompletableFuture.runAsync(() -> {
+        CompletableFuture cf = ocdsExecutor.runAsync(() -> {
             ExportRfxResponse rfxResponse = getFirstRFXWithSuppliers(pq);
             List<Supplier> sdf = rfxResponse.getSuppliersList().getSupplier();
             Set<Integer> bravoIds = sdf.stream().map(t -> t.getCompanyData().getId()).collect(Collectors.toSet());
-            Set<OrganisationMapping> orgMappings = tendersDBDelegate.findOrganisationMappingByExternalOrganisationIdIn(bravoIds);
+            Map<Integer, OrganisationMapping> orgMappings = pq.getFetchPlan().getOrganisationMappings(bravoIds);
             List<OrganizationReference1> tenderers = rfxResponse.getSuppliersList().getSupplier().stream().map(t -> this.convertSuppliers(t, orgMappings)).toList();
             tender.setTenderers(tenderers);
         });
         return new MapperResponse(re, cf);
     }
 
-    private OrganizationReference1 convertSuppliers(Supplier supplier, Set<OrganisationMapping> orgMappings) {
+    private OrganizationReference1 convertSuppliers(Supplier supplier, Map<Integer, OrganisationMapping> orgMappings) {
         OrganizationReference1 ref = new OrganizationReference1();
-        Optional<OrganisationMapping> orgMap = orgMappings.stream().filter(t -> t.getExternalOrganisationId().equals(supplier.getCompanyData().getId())).findFirst();
+        Optional<OrganisationMapping> orgMap = Optional.ofNullable(orgMappings.get(supplier.getCompanyData().getId()));
         if (null != supplier.getCompanyData()) {
             CompanyData cData = supplier.getCompanyData();
             if (orgMap.isPresent()) {
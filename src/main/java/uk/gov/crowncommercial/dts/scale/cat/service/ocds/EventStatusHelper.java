@@ -4,6 +4,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.TenderStatus;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.TerminationType;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPublicDetail.StatusEnum;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Rfx;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.RfxSetting;
 import java.time.Instant;
@@ -125,6 +126,13 @@ public class EventStatusHelper {
     public static boolean isCancelled(RfxSetting rfxSetting){
       return hasValue(CANCELLED_LIST, rfxSetting.getStatusCode());
   }
+
+    /**
+     * Awarded and cancelled rfxs won't change in Jaggaer any more
+     */
+    public static boolean isFinal(ExportRfxResponse rfx) {
+        return isAwarded(rfx.getRfxSetting()) || isCancelled(rfx.getRfxSetting());
+    }
     
     public static String getEventStatus(RfxSetting rfxSetting) {
       if (isOpen(rfxSetting)) {
@@ -9,6 +9,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPublicDetail.StatusEnum;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.TenderStatus;
+import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -43,6 +44,21 @@ public class EventsHelper {
         return getLastPublishedEvent(pp);
     }
     
+    /**
+     * Latest DB change to the project or any of its events. What was built from a project before
+     * can be reused as long as this hasn't moved (and its Jaggaer status can't either).
+     */
+    public static Instant getChangeMarker(ProcurementProject pp) {
+        Instant changedAt = pp.getUpdatedAt();
+        for (ProcurementEvent event : pp.getProcurementEvents()) {
+            if (Objects.nonNull(event.getUpdatedAt())
+                    && (Objects.isNull(changedAt) || event.getUpdatedAt().isAfter(changedAt))) {
+                changedAt = event.getUpdatedAt();
+            }
+        }
+        return changedAt;
+    }
+
     public static Pair<ProcurementEvent, ProcurementEvent> getFirstAndLastPublishedEvent(ProcurementProject pp) {
       if (pp.getProcurementEvents().size() > 1) {
           return Pair.of(EventsHelper.getFirstPublishedEvent(pp), EventsHelper.getLastPublishedEvent(pp));
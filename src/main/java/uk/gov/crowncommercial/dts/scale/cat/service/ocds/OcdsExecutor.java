@@ -0,0 +1,148 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.crowncommercial.dts.scale.cat.exception.OcdsTimeoutException;
+
+/**
+ * Runs the blocking upstream calls (Jaggaer, Conclave, Agreements, DB) of OCDS record assembly on
+ * a dedicated bounded pool, rather than the JVM wide common ForkJoinPool which is sized for CPU
+ * bound work. When the pool and its queue are full the request thread runs the section itself.
+ * <p>
+ * Each record has a deadline: once it passes, or as soon as any section fails, the outstanding
+ * sections are cancelled and their threads interrupted.
+ */
+@Component
+@Slf4j
+public class OcdsExecutor {
+
+  static final String PREFIX = "cat.ocds.assembly";
+
+  private final ThreadPoolExecutor executor;
+  private final MeterRegistry registry;
+
+  @Getter
+  private final Duration deadline;
+
+  public OcdsExecutor(final MeterRegistry registry,
+      @Value("${config.ocds.executor.threads: 32}") final int threads,
+      @Value("${config.ocds.executor.queue-capacity: 256}") final int queueCapacity,
+      @Value("${config.ocds.executor.deadline: PT30S}") final Duration deadline) {
+    this.registry = registry;
+    this.deadline = deadline;
+    var threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          var thread = new Thread(r, "OCDS-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+    ExecutorServiceMetrics.monitor(registry, executor, PREFIX);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Like {@link CompletableFuture#runAsync(Runnable)} on the OCDS pool, except that cancelling the
+   * returned future interrupts the task if it is running
+   */
+  public CompletableFuture<Void> runAsync(final Runnable runnable) {
+    return supplyAsync(() -> {
+      runnable.run();
+      return null;
+    });
+  }
+
+  /**
+   * Like {@link CompletableFuture#supplyAsync(Supplier)} on the OCDS pool, except that cancelling
+   * the returned future interrupts the task if it is running
+   */
+  public <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier) {
+    var result = new CompletableFuture<T>();
+    var task = executor.submit(() -> {
+      try {
+        result.complete(supplier.get());
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+      }
+    });
+    result.whenComplete((r, e) -> {
+      if (result.isCancelled()) {
+        task.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Waits for all the sections of a record until the first failure or the deadline, cancelling
+   * the rest in either case
+   *
+   * @param futures the sections' futures
+   * @param startNanos {@link System#nanoTime()} when assembly of the record started
+   */
+  public void await(final List<CompletableFuture<?>> futures, final long startNanos) {
+    var all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+    var firstFailure = new CompletableFuture<Void>();
+    futures.forEach(future -> future.whenComplete((r, e) -> {
+      if (e != null) {
+        firstFailure.completeExceptionally(e);
+      }
+    }));
+
+    var remaining = deadline.toNanos() - (System.nanoTime() - startNanos);
+    try {
+      CompletableFuture.anyOf(all, firstFailure).get(remaining, TimeUnit.NANOSECONDS);
+      record("completed", startNanos);
+    } catch (TimeoutException e) {
+      cancel(futures);
+      record("timeout", startNanos);
+      throw new OcdsTimeoutException("OCDS record not assembled within " + deadline);
+    } catch (ExecutionException e) {
+      cancel(futures);
+      record("error", startNanos);
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Error while assembling OCDS record", e.getCause());
+    } catch (InterruptedException e) {
+      cancel(futures);
+      record("interrupted", startNanos);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while assembling OCDS record", e);
+    }
+  }
+
+  public void cancel(final List<CompletableFuture<?>> futures) {
+    var cancelled = futures.stream().filter(future -> future.cancel(true)).count();
+    if (cancelled > 0) {
+      log.debug("Cancelled {} outstanding OCDS sections", cancelled);
+    }
+  }
+
+  private void record(final String outcome, final long startNanos) {
+    Timer.builder(PREFIX + ".record").description("OCDS record assembly time")
+        .tag("outcome", outcome).register(registry)
+        .record(Duration.ofNanos(System.nanoTime() - startNanos));
+  }
+}
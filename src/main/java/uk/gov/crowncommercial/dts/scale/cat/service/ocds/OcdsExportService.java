@@ -0,0 +1,177 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
+import uk.gov.crowncommercial.dts.scale.cat.exception.TooManyRequestsException;
+import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPackage;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the OCDS record packages of an agreement's published projects as newline delimited JSON,
+ * one package per line in project id order.
+ * <p>
+ * Only the project ids are selected up front. A sliding window of records is assembled at a time,
+ * on a pool of its own (the records' sections then run on the {@link OcdsExecutor} as usual), and
+ * each is written and flushed as soon as the ones before it are, so memory stays flat however many
+ * projects match. Projects that fail to assemble are logged and left out.
+ * <p>
+ * Each node runs at most <code>config.ocds.export.max-concurrent</code> exports at a time, see
+ * {@link #reserveExport()}.
+ */
+@Service
+@Slf4j
+public class OcdsExportService {
+
+    static final String PREFIX = "cat.ocds.export";
+    private static final Instant OPEN_END = Instant.parse("9999-12-31T00:00:00Z");
+
+    private final RetryableTendersDBDelegate tendersDBDelegate;
+    private final ProjectPackageService projectPackageService;
+    private final ObjectWriter writer;
+    private final MeterRegistry registry;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final Semaphore exports;
+
+    public OcdsExportService(RetryableTendersDBDelegate tendersDBDelegate,
+                             ProjectPackageService projectPackageService, ObjectMapper mapper, MeterRegistry registry,
+                             @Value("${config.ocds.export.concurrency: 4}") int concurrency,
+                             @Value("${config.ocds.export.max-concurrent: 2}") int maxConcurrent) {
+        this.tendersDBDelegate = tendersDBDelegate;
+        this.projectPackageService = projectPackageService;
+        this.writer = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.registry = registry;
+        this.concurrency = concurrency;
+        this.exports = new Semaphore(maxConcurrent);
+        var threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            var thread = new Thread(r, "OCDS-export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reserves one of this node's export slots, to be closed once the export is written
+     *
+     * @throws TooManyRequestsException if all the slots are taken
+     */
+    public ExportSlot reserveExport() {
+        if (!exports.tryAcquire()) {
+            count("rejected");
+            throw new TooManyRequestsException("The maximum number of OCDS exports are already running");
+        }
+        return new ExportSlot();
+    }
+
+    /**
+     * @param agreementId   the projects' commercial agreement
+     * @param publishedFrom inclusive lower bound of the first publish date, if any
+     * @param publishedTo   exclusive upper bound of the first publish date, if any
+     * @param status        tender status of the latest published event, if any (case insensitive)
+     * @param sections      the OCDS sections of each record
+     * @param out           written and flushed one line at a time, not closed
+     * @return the number of packages written
+     */
+    public int export(String agreementId, Instant publishedFrom, Instant publishedTo, String status,
+                      List<String> sections, String principal, OutputStream out) throws IOException {
+        Iterator<Integer> projectIds = tendersDBDelegate.findPublishedProjectIdsByAgreementId(agreementId,
+                null != publishedFrom ? publishedFrom : Instant.EPOCH,
+                null != publishedTo ? publishedTo : OPEN_END).iterator();
+        Deque<CompletableFuture<Optional<ProjectPackage>>> window = new ArrayDeque<>();
+        int written = 0;
+        try {
+            while (projectIds.hasNext() || !window.isEmpty()) {
+                while (projectIds.hasNext() && window.size() < concurrency) {
+                    Integer procId = projectIds.next();
+                    window.add(CompletableFuture.supplyAsync(
+                            () -> assemble(procId, status, sections, principal), executor));
+                }
+                Optional<ProjectPackage> projectPackage = window.remove().join();
+                if (projectPackage.isPresent()) {
+                    out.write(writer.writeValueAsBytes(projectPackage.get()));
+                    out.write('\n');
+                    out.flush();
+                    written++;
+                }
+            }
+        } finally {
+            // the client has gone away - don't start the rest
+            window.forEach(future -> future.cancel(false));
+        }
+        log.info("Exported {} OCDS records for agreement {}", written, agreementId);
+        return written;
+    }
+
+    private Optional<ProjectPackage> assemble(Integer procId, String status, List<String> sections,
+                                              String principal) {
+        try {
+            Optional<ProcurementProject> project = tendersDBDelegate.findProcurementProjectById(procId);
+            if (project.isEmpty() || !hasStatus(project.get(), status)) {
+                count("skipped");
+                return Optional.empty();
+            }
+            ProjectPackage projectPackage = projectPackageService.getProjectPackage(project.get(), principal, sections);
+            count("exported");
+            return Optional.of(projectPackage);
+        } catch (RuntimeException e) {
+            log.warn("Left project {} out of the OCDS export", procId, e);
+            count("error");
+            return Optional.empty();
+        }
+    }
+
+    private static boolean hasStatus(ProcurementProject project, String status) {
+        if (null == status) {
+            return true;
+        }
+        ProcurementEvent event = EventsHelper.getLastPublishedEvent(project);
+        return null != event && null != event.getTenderStatus()
+                && status.strip().equalsIgnoreCase(event.getTenderStatus().strip());
+    }
+
+    public class ExportSlot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                exports.release();
+            }
+        }
+    }
+
+    private void count(String outcome) {
+        Counter.builder(PREFIX + ".records").description("OCDS records considered for export")
+                .tag("outcome", outcome).register(registry).increment();
+    }
+}
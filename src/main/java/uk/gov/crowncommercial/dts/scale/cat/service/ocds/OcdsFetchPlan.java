@@ -0,0 +1,178 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import uk.gov.crowncommercial.dts.scale.cat.model.conclave_wrapper.generated.OrganisationProfileResponseInfo;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OrganisationMapping;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
+import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The upstream data shared by the sections of one OCDS record. The rfx exports are planned by
+ * {@link OcdsFetchPlanner} and already in flight when the sections start; organisation mappings and
+ * Conclave identities are looked up by whichever section asks first and shared with the others.
+ */
+@RequiredArgsConstructor
+public class OcdsFetchPlan {
+
+    /**
+     * Components of an rfx export, narrowest first - each includes the ones before it
+     */
+    public enum RfxComponents {
+        SUPPLIERS {
+            @Override
+            ExportRfxResponse fetch(JaggaerService jaggaerService, String externalEventId) {
+                return jaggaerService.getRfxWithSuppliers(externalEventId);
+            }
+        },
+        SUPPLIERS_OFFERS_AND_RESPONSE_COUNTERS {
+            @Override
+            ExportRfxResponse fetch(JaggaerService jaggaerService, String externalEventId) {
+                return jaggaerService.getRfxWithSuppliersOffersAndResponseCounters(externalEventId);
+            }
+        };
+
+        abstract ExportRfxResponse fetch(JaggaerService jaggaerService, String externalEventId);
+
+        boolean includes(RfxComponents other) {
+            return compareTo(other) >= 0;
+        }
+    }
+
+    private record Rfx(RfxComponents components, CompletableFuture<ExportRfxResponse> response) {
+    }
+
+    private final JaggaerService jaggaerService;
+    private final RetryableTendersDBDelegate tendersDBDelegate;
+    private final ConclaveService conclaveService;
+
+    private final Map<String, Rfx> rfxs = new HashMap<>();
+    private final Map<Integer, CompletableFuture<Optional<OrganisationMapping>>> organisationMappings = new HashMap<>();
+    private final Map<String, CompletableFuture<Optional<OrganisationProfileResponseInfo>>> organisationIdentities = new HashMap<>();
+
+    void addRfx(String externalEventId, RfxComponents components, CompletableFuture<ExportRfxResponse> response) {
+        synchronized (rfxs) {
+            rfxs.put(externalEventId, new Rfx(components, response));
+        }
+    }
+
+    List<CompletableFuture<?>> getFutures() {
+        synchronized (rfxs) {
+            return rfxs.values().stream().<CompletableFuture<?>>map(Rfx::response).toList();
+        }
+    }
+
+    /**
+     * The event's rfx with at least the given components. If it wasn't planned it is fetched on
+     * this thread.
+     */
+    public ExportRfxResponse getRfx(ProcurementEvent event, RfxComponents components) {
+        String externalEventId = event.getExternalEventId();
+        Rfx rfx;
+        boolean fetch = false;
+        synchronized (rfxs) {
+            rfx = rfxs.get(externalEventId);
+            if (null == rfx || !rfx.components().includes(components)) {
+                rfx = new Rfx(components, new CompletableFuture<>());
+                rfxs.put(externalEventId, rfx);
+                fetch = true;
+            }
+        }
+        if (fetch) {
+            try {
+                rfx.response().complete(components.fetch(jaggaerService, externalEventId));
+            } catch (RuntimeException e) {
+                rfx.response().completeExceptionally(e);
+                throw e;
+            }
+        }
+        return get(rfx.response());
+    }
+
+    /**
+     * The event's rfx if it has already been fetched successfully
+     */
+    public Optional<ExportRfxResponse> getFetchedRfx(ProcurementEvent event) {
+        Rfx rfx;
+        synchronized (rfxs) {
+            rfx = rfxs.get(event.getExternalEventId());
+        }
+        if (null == rfx || !rfx.response().isDone() || rfx.response().isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(rfx.response().join());
+    }
+
+    /**
+     * Organisation mappings by Jaggaer (bravo) id, looked up in one query for the ids not already known
+     */
+    public Map<Integer, OrganisationMapping> getOrganisationMappings(Set<Integer> externalOrganisationIds) {
+        Map<Integer, Optional<OrganisationMapping>> mappings = load(organisationMappings, externalOrganisationIds, ids -> {
+            Map<Integer, Optional<OrganisationMapping>> found = tendersDBDelegate
+                    .findOrganisationMappingByExternalOrganisationIdIn(ids).stream()
+                    .collect(Collectors.toMap(OrganisationMapping::getExternalOrganisationId, Optional::of, (a, b) -> a));
+            ids.forEach(id -> found.putIfAbsent(id, Optional.empty()));
+            return found;
+        });
+        return mappings.entrySet().stream().filter(e -> e.getValue().isPresent())
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+    }
+
+    public Optional<OrganisationProfileResponseInfo> getOrganisationIdentity(String organisationId) {
+        return load(organisationIdentities, Set.of(organisationId),
+                ids -> Map.of(organisationId, conclaveService.getOrganisationIdentity(organisationId)))
+                .get(organisationId);
+    }
+
+    /**
+     * Loads the keys no section has asked for yet on this thread, and waits for the others
+     */
+    private static <K, V> Map<K, V> load(Map<K, CompletableFuture<V>> loaded, Set<K> keys,
+                                         Function<Set<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> futures = new HashMap<>();
+        Map<K, CompletableFuture<V>> claimed = new HashMap<>();
+        synchronized (loaded) {
+            for (K key : keys) {
+                futures.put(key, loaded.computeIfAbsent(key, k -> {
+                    CompletableFuture<V> future = new CompletableFuture<>();
+                    claimed.put(k, future);
+                    return future;
+                }));
+            }
+        }
+        if (!claimed.isEmpty()) {
+            try {
+                Map<K, V> values = loader.apply(claimed.keySet());
+                claimed.forEach((key, future) -> future.complete(values.get(key)));
+            } catch (RuntimeException e) {
+                claimed.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            }
+        }
+        Map<K, V> result = new HashMap<>();
+        futures.forEach((key, future) -> result.put(key, get(future)));
+        return result;
+    }
+
+    @SneakyThrows
+    private static <V> V get(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
+import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsFetchPlan.RfxComponents;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsSections.*;
+
+/**
+ * Works out which rfx exports the requested sections of an OCDS record need - one per event, with
+ * the widest components any of the sections need from it - and starts them in parallel on the
+ * {@link OcdsExecutor}.
+ * <p>
+ * The exports are submitted before any section, so a section waiting on one never waits on a task
+ * still queued behind it.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OcdsFetchPlanner {
+    private final JaggaerService jaggaerService;
+    private final RetryableTendersDBDelegate tendersDBDelegate;
+    private final ConclaveService conclaveService;
+    private final OcdsExecutor ocdsExecutor;
+
+    public OcdsFetchPlan plan(ProjectQuery query) {
+        List<String> sections = query.getSections();
+        ProcurementProject pp = query.getProject();
+        Map<String, RfxComponents> rfxs = new LinkedHashMap<>();
+
+        if (sections.contains(COMPILED_RELEASE_TENDER) || sections.contains(COMPILED_RELEASE_TENDER_TENDERERS)) {
+            add(rfxs, EventsHelper.getFirstPublishedEvent(pp), RfxComponents.SUPPLIERS);
+        }
+        if (sections.contains(COMPILED_RELEASE_TENDER) || sections.contains(COMPILED_RELEASE_AWARDS)) {
+            add(rfxs, EventsHelper.getAwardEvent(pp), RfxComponents.SUPPLIERS);
+        }
+        if (sections.contains(COMPILED_RELEASE_STATISTICS)) {
+            add(rfxs, EventsHelper.getLastPublishedEvent(pp), RfxComponents.SUPPLIERS_OFFERS_AND_RESPONSE_COUNTERS);
+        }
+        log.debug("Fetching rfxs {} for project {}", rfxs, query.getProcId());
+
+        OcdsFetchPlan plan = new OcdsFetchPlan(jaggaerService, tendersDBDelegate, conclaveService);
+        rfxs.forEach((externalEventId, components) -> plan.addRfx(externalEventId, components,
+                ocdsExecutor.supplyAsync(() -> components.fetch(jaggaerService, externalEventId))));
+        return plan;
+    }
+
+    private static void add(Map<String, RfxComponents> rfxs, ProcurementEvent event, RfxComponents components) {
+        if (null != event) {
+            rfxs.merge(event.getExternalEventId(), components, (a, b) -> a.includes(b) ? a : b);
+        }
+    }
+}
@@ -20,24 +20,39 @@ public class OcdsRecordMapper  implements InitializingBean {
     private final CompiledReleaseTenderService compiledTenderService;
     private final CompiledReleaseAwardsService compiledAwardsService;
     private final StatisticsService statisticsService;
+    private final OcdsExecutor ocdsExecutor;
+    private final OcdsFetchPlanner fetchPlanner;
 
 
+    /**
+     * Sections fetch their upstream data concurrently on the {@link OcdsExecutor}, within the
+     * record's deadline. If a section fails the others are cancelled. Upstream data used by more
+     * than one section is fetched once, through the query's {@link OcdsFetchPlan}.
+     */
     public Record1 populate(ProjectQuery query, Record1 record){
+        long startNanos = System.nanoTime();
         Record1 result = record;
-        List<CompletableFuture> cfs = new ArrayList<>();
-        for(String section: query.getSections()){
-            ProjectRecordHandler handler = handlers.get(section);
-            if(null != handler){
-                MapperResponse response = handler.apply(query, result);
-                result = response.getRecord();
-                if(null != response.getCompletableFuture()){
-                    cfs.add(response.getCompletableFuture());
+        List<CompletableFuture<?>> cfs = new ArrayList<>();
+        try {
+            OcdsFetchPlan fetchPlan = fetchPlanner.plan(query);
+            ((ProjectRequest) query).setFetchPlan(fetchPlan);
+            cfs.addAll(fetchPlan.getFutures());
+            for (String section : query.getSections()) {
+                ProjectRecordHandler handler = handlers.get(section);
+                if (null != handler) {
+                    MapperResponse response = handler.apply(query, result);
+                    result = response.getRecord();
+                    if (null != response.getCompletableFuture()) {
+                        cfs.add(response.getCompletableFuture());
+                    }
                 }
             }
+        } catch (RuntimeException e) {
+            ocdsExecutor.cancel(cfs);
+            throw e;
         }
         if(cfs.size() > 0) {
-            CompletableFuture[] sdf = cfs.toArray(new CompletableFuture[cfs.size()]);
-            CompletableFuture.allOf(sdf).join();
+            ocdsExecutor.await(cfs, startNanos);
         }
 
         return result;
@@ -0,0 +1,129 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.core.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshot;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshotKey;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
+import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPackage;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the assembled project packages of projects whose Jaggaer status is final (awarded or
+ * cancelled), so they are served with one read instead of rebuilding them from Jaggaer, Conclave,
+ * Agreements and the DB. A snapshot is served while the project's change marker hasn't moved and it
+ * is younger than the max age, and is dropped by the services that change the project's events.
+ * Snapshots past the max age are purged nightly.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OcdsRecordSnapshotService {
+    private final RetryableTendersDBDelegate dbDelegate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${config.ocds.snapshot.enabled: true}")
+    private boolean enabled;
+
+    @Value("${config.ocds.snapshot.max-age: P7D}")
+    private Duration maxAge;
+
+    public Optional<ProjectPackage> find(ProcurementProject project, List<String> sections) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Instant changeMarker = EventsHelper.getChangeMarker(project);
+        Instant oldest = Instant.now().minus(maxAge);
+        return dbDelegate.findOcdsRecordSnapshot(getKey(project.getId(), sections))
+                .filter(s -> Objects.equals(s.getChangeMarker(), changeMarker))
+                .filter(s -> s.getCreatedAt().isAfter(oldest))
+                .flatMap(this::read);
+    }
+
+    /**
+     * Keeps the package if the project's latest event is final in Jaggaer
+     */
+    public void save(ProjectQuery query, ProjectPackage projectPackage) {
+        if (!enabled) {
+            return;
+        }
+        ProcurementProject pp = query.getProject();
+        ProcurementEvent pe = EventsHelper.getLastPublishedEvent(pp);
+        if (null == pe || null == query.getFetchPlan()
+                || !query.getFetchPlan().getFetchedRfx(pe).map(EventStatusHelper::isFinal).orElse(false)) {
+            return;
+        }
+        try {
+            dbDelegate.save(OcdsRecordSnapshot.builder().key(getKey(pp.getId(), query.getSections()))
+                    .changeMarker(EventsHelper.getChangeMarker(pp))
+                    .projectPackage(objectMapper.writeValueAsString(projectPackage))
+                    .createdAt(Instant.now()).build());
+        } catch (Exception e) {
+            log.warn("Unable to save OCDS snapshot of project {}", pp.getId(), e);
+        }
+    }
+
+    /**
+     * Drops the project's snapshots now, and again once the calling transaction has committed, so a
+     * package assembled by a concurrent request from the state before the change isn't kept
+     */
+    public void invalidate(Integer projectId) {
+        delete(projectId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete(projectId);
+                }
+            });
+        }
+    }
+
+    @Scheduled(cron = "${config.ocds.snapshot.purge.schedule: 0 45 2 * * *}")
+    @SchedulerLock(name = "OcdsRecordSnapshotPurge_scheduledTask",
+            lockAtLeastForString = "PT5M", lockAtMostForString = "PT30M")
+    public void purgeExpired() {
+        Instant before = Instant.now().minus(maxAge);
+        int deleted = dbDelegate.deleteOcdsRecordSnapshotsCreatedBefore(before);
+        if (deleted > 0) {
+            log.info("Purged {} OCDS snapshots created before {}", deleted, before);
+        }
+    }
+
+    private void delete(Integer projectId) {
+        int deleted = dbDelegate.deleteOcdsRecordSnapshots(projectId);
+        if (deleted > 0) {
+            log.debug("Dropped {} OCDS snapshots of project {}", deleted, projectId);
+        }
+    }
+
+    private Optional<ProjectPackage> read(OcdsRecordSnapshot snapshot) {
+        try {
+            return Optional.of(objectMapper.readValue(snapshot.getProjectPackage(), ProjectPackage.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable OCDS snapshot of project {}", snapshot.getKey().getProjectId(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static OcdsRecordSnapshotKey getKey(Integer projectId, List<String> sections) {
+        return new OcdsRecordSnapshotKey(projectId,
+                sections.stream().sorted().distinct().collect(Collectors.joining(",")));
+    }
+}
@@ -20,14 +20,26 @@ public class ProjectPackageService {
     private final ProjectRecordService projectRecordService;
     private final NonOCDSProjectService nonOCDSService;
     private final RetryableTendersDBDelegate dbDelegate;
+    private final OcdsRecordSnapshotService snapshotService;
 
     public ProjectPackage getProjectPackage(Integer procId, String principal, List<String> sections) {
+        return getProjectPackage(getProjectEntity(procId), principal, sections);
+    }
+
+    public ProjectPackage getProjectPackage(ProcurementProject project, String principal, List<String> sections) {
+        Optional<ProjectPackage> snapshot = snapshotService.find(project, sections);
+        if (snapshot.isPresent()) {
+            return snapshot.get();
+        }
+
         ProjectRequest query = new ProjectRequest();
         query.setPrincipal(principal);
-        query.setProcId(procId);
-        query.setProject(getProjectEntity(procId));
+        query.setProcId(project.getId());
+        query.setProject(project);
         query.setSections(sections);
-        return getProjectSummary(query);
+        ProjectPackage projectPackage = getProjectSummary(query);
+        snapshotService.save(query, projectPackage);
+        return projectPackage;
     }
 
     private ProcurementProject getProjectEntity(Integer procId) {
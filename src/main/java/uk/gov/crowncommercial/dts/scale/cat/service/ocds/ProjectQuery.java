@@ -5,10 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
-import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 public interface ProjectQuery {
     ProcurementProject getProject();
@@ -19,7 +17,5 @@ public interface ProjectQuery {
 
     String getPrincipal();
 
-    CompletableFuture<ExportRfxResponse> getLatestEventRFXWithSuppliers();
-
-    CompletableFuture<ExportRfxResponse> getFirstEventRFXWithSuppliers();
+    OcdsFetchPlan getFetchPlan();
 }
@@ -5,10 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
-import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 @Getter
 @Setter
@@ -19,6 +17,5 @@ public class ProjectRequest implements ProjectQuery{
     private Integer procId;
     private List<String> sections;
     private String principal;
-    private CompletableFuture<ExportRfxResponse> latestEventRFXWithSuppliers;
-    private CompletableFuture<ExportRfxResponse> firstEventRFXWithSuppliers;
+    private OcdsFetchPlan fetchPlan;
 }
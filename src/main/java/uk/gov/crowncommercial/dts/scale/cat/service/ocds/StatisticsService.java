@@ -8,7 +8,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.*;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.LastRound;
-import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsFetchPlan.RfxComponents;
 
 import java.math.BigDecimal;
 import java.util.concurrent.CompletableFuture;
@@ -17,14 +17,14 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 @RequiredArgsConstructor
 public class StatisticsService {
-    private final JaggaerService jaggaerService;
+    private final OcdsExecutor ocdsExecutor;
     public MapperResponse populate(Record1 record, ProjectQuery query) {
         log.debug("populating basic details");
         Release release = OcdsHelper.getRelease(record);
         ProcurementProject pp = query.getProject();
         ProcurementEvent pe = EventsHelper.getLastPublishedEvent(pp);
-        CompletableFuture<Void> cf = CompletableFuture.runAsync(() -> {
-            ExportRfxResponse rfxResponse = jaggaerService.getRfxWithSuppliersOffersAndResponseCounters(pe.getExternalEventId());
+        CompletableFuture<Void> cf = ocdsExecutor.runAsync(() -> {
+            ExportRfxResponse rfxResponse = query.getFetchPlan().getRfx(pe, RfxComponents.SUPPLIERS_OFFERS_AND_RESPONSE_COUNTERS);
             LastRound lastRound = rfxResponse.getSupplierResponseCounters().getLastRound();
             Bids1 bids = OcdsHelper.getBids(record);
             populateStatistics(lastRound, bids);
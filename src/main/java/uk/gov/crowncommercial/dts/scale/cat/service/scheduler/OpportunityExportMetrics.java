@@ -0,0 +1,45 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Micrometer metrics of the opportunity export runs, tagged by agreement and export
+ */
+@Component
+@RequiredArgsConstructor
+public class OpportunityExportMetrics {
+  static final String PREFIX = "cat.oppertunities.export";
+
+  private final MeterRegistry registry;
+  private final Map<String, AtomicLong> lastSuccess = new ConcurrentHashMap<>();
+
+  public void recordRun(final String agreementId, final String export, final String outcome,
+      final long startNanos) {
+    Timer.builder(PREFIX + ".run").description("Export run time").tag("agreement", agreementId)
+        .tag("export", export).tag("outcome", outcome).register(registry)
+        .record(Duration.ofNanos(System.nanoTime() - startNanos));
+  }
+
+  public void recordSuccess(final String agreementId, final String export, final int projects) {
+    Counter.builder(PREFIX + ".projects").description("Projects written by export runs")
+        .tag("agreement", agreementId).tag("export", export).register(registry)
+        .increment(projects);
+    lastSuccess.computeIfAbsent(agreementId + "/" + export, key -> {
+      var value = new AtomicLong();
+      Gauge.builder(PREFIX + ".last.success", value, AtomicLong::get)
+          .description("Epoch second of the last successful run").tag("agreement", agreementId)
+          .tag("export", export).register(registry);
+      return value;
+    }).set(Instant.now().getEpochSecond());
+  }
+}
@@ -0,0 +1,121 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.ToIntFunction;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.core.DefaultLockingTaskExecutor;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig.Agreement;
+
+/**
+ * Schedules the opportunity exports (CSV and search index) of every configured agreement. Each
+ * agreement's jobs have their own cron, their own lock and their own metrics, and run on a shared
+ * pool so a slow agreement doesn't hold the others up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpportunityExportScheduler {
+
+  static final String CSV_EXPORT = "csv";
+  static final String SEARCH_EXPORT = "search";
+  static final String SEARCH_FULL_EXPORT = "search-full";
+  private static final String DISABLED = "-";
+  private static final String CSV_LOCK_PREFIX = "CSVGeneration_";
+  private static final String SEARCH_LOCK_PREFIX = "ProjectsToOpenSearch_";
+  private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(10);
+  private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(5);
+
+  private final OpportunityExportConfig exportConfig;
+  private final ProjectsCSVGenerationScheduledTask projectsCSVGenerationScheduledTask;
+  private final ProjectsToOpenSearchScheduledTask projectsToOpenSearchScheduledTask;
+  private final OpportunityExportMetrics exportMetrics;
+  private final LockProvider lockProvider;
+  private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+  @Value("${config.external.s3.oppertunities.schedule:-}")
+  private String csvSchedule;
+
+  @Value("${config.external.projects.sync.schedule:-}")
+  private String syncSchedule;
+
+  @Value("${config.external.projects.sync.full-schedule: 0 0 3 * * *}")
+  private String fullSyncSchedule;
+
+  @PostConstruct
+  void init() {
+    taskScheduler.setPoolSize(Math.max(1, exportConfig.getParallelism()));
+    taskScheduler.setThreadNamePrefix("JGR-export-");
+    taskScheduler.initialize();
+
+    var lockingTaskExecutor = new DefaultLockingTaskExecutor(lockProvider);
+    for (Agreement agreement : exportConfig.getAgreements()) {
+      // the incremental and full sync share a lock as they write to the same index
+      schedule(agreement, CSV_EXPORT, getCsvLockName(agreement),
+          StringUtils.defaultIfBlank(agreement.getCsvSchedule(), csvSchedule),
+          projectsCSVGenerationScheduledTask::generateCSV, lockingTaskExecutor);
+      schedule(agreement, SEARCH_EXPORT, SEARCH_LOCK_PREFIX + agreement.getId(),
+          StringUtils.defaultIfBlank(agreement.getSyncSchedule(), syncSchedule),
+          projectsToOpenSearchScheduledTask::sync, lockingTaskExecutor);
+      schedule(agreement, SEARCH_FULL_EXPORT, SEARCH_LOCK_PREFIX + agreement.getId(),
+          StringUtils.defaultIfBlank(agreement.getFullSyncSchedule(), fullSyncSchedule),
+          projectsToOpenSearchScheduledTask::reconcile, lockingTaskExecutor);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    taskScheduler.shutdown();
+  }
+
+  /**
+   * Lock held by whichever job is writing the agreement's CSV file and cached rows: the CSV export,
+   * or the full search sync handing its enriched projects on to it
+   */
+  static String getCsvLockName(final Agreement agreement) {
+    return CSV_LOCK_PREFIX + agreement.getId();
+  }
+
+  static LockConfiguration getLockConfiguration(final String lockName) {
+    var now = Instant.now();
+    return new LockConfiguration(lockName, now.plus(LOCK_AT_MOST_FOR), now.plus(LOCK_AT_LEAST_FOR));
+  }
+
+  private void schedule(final Agreement agreement, final String export, final String lockName,
+      final String cron, final ToIntFunction<Agreement> job,
+      final DefaultLockingTaskExecutor lockingTaskExecutor) {
+    if (DISABLED.equals(cron.trim())) {
+      log.info("No schedule for {} {} export", agreement.getId(), export);
+      return;
+    }
+    taskScheduler.schedule(() -> {
+      Runnable task = () -> run(agreement, export, job);
+      lockingTaskExecutor.executeWithLock(task, getLockConfiguration(lockName));
+    }, new CronTrigger(cron.trim()));
+    log.info("Scheduled {} {} export with cron '{}'", agreement.getId(), export, cron.trim());
+  }
+
+  private void run(final Agreement agreement, final String export,
+      final ToIntFunction<Agreement> job) {
+    var startNanos = System.nanoTime();
+    try {
+      var projects = job.applyAsInt(agreement);
+      exportMetrics.recordRun(agreement.getId(), export, "completed", startNanos);
+      exportMetrics.recordSuccess(agreement.getId(), export, projects);
+    } catch (Exception e) {
+      exportMetrics.recordRun(agreement.getId(), export, "error", startNanos);
+      log.error("Error while running {} {} export", agreement.getId(), export, e);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig.Agreement;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
+import uk.gov.crowncommercial.dts.scale.cat.model.generated.TenderStatus;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.AgreementsService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
+import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.EventsHelper;
+import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
+
+/**
+ * Gathers the data behind the opportunity exports (CSV and search index) for a set of published
+ * projects in one pass.
+ * <ol>
+ * <li>Entity and template data is read on the caller's thread, inside its session</li>
+ * <li>Lot details, buyer identities, question counts and Jaggaer rfxs are fetched concurrently on a
+ * bounded pool, each distinct key only once</li>
+ * <li>The results are joined back onto the projects by key (lot, organisation, event, rfxId)</li>
+ * </ol>
+ */
+@Component
+@Slf4j
+public class ProjectEnrichmentPipeline {
+
+  static final String SUPPLIERS_COMPONENT = "SUPPLIERS";
+  static final String RESPONSE_COUNTERS_COMPONENT = "supplier_Response_Counters";
+
+  private final RetryableTendersDBDelegate retryableTendersDBDelegate;
+  private final AgreementsService agreementsService;
+  private final ConclaveService conclaveService;
+  private final JaggaerService jaggaerService;
+  private final ExecutorService executor;
+
+  public ProjectEnrichmentPipeline(final RetryableTendersDBDelegate retryableTendersDBDelegate,
+      final AgreementsService agreementsService, final ConclaveService conclaveService,
+      final JaggaerService jaggaerService,
+      @Value("${config.oppertunities.enrichment.parallelism: 8}") final int parallelism) {
+    this.retryableTendersDBDelegate = retryableTendersDBDelegate;
+    this.agreementsService = agreementsService;
+    this.conclaveService = conclaveService;
+    this.jaggaerService = jaggaerService;
+    var threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+      var thread = new Thread(r, "JGR-enrichment-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Enriches the given projects. Projects which cannot be read, or whose lot or buyer cannot be
+   * found, are left out. Rfxs Jaggaer did not return are left <code>null</code>.
+   *
+   * @param agreement the agreement the projects belong to
+   * @param projects published projects, read in the caller's transaction
+   * @return one entry per exportable project
+   */
+  public List<ProjectExportData> enrich(final Agreement agreement,
+      final Collection<ProcurementProject> projects) {
+    var rows = new ArrayList<ProjectExportData>(projects.size());
+    for (ProcurementProject project : projects) {
+      try {
+        rows.add(fromProject(project));
+      } catch (Exception e) {
+        log.error("Error while reading project {} for export", project.getId(), e);
+      }
+    }
+
+    var lots = submit(distinct(rows, ProjectExportData::getLotNumber),
+        lot -> agreementsService.getLotDetails(agreement.getId(), lot), "lot details");
+    var organisations = submit(distinct(rows, ProjectExportData::getOrganisationId),
+        orgId -> conclaveService.getOrganisationIdentity(orgId).orElse(null),
+        "organisation identity");
+    var questions = submit(distinct(rows, ProjectExportData::getFirstEventId),
+        retryableTendersDBDelegate::findQuestionsCountByEventId, "questions count");
+    var rfxBatches = submitRfxSearches(agreement, rows);
+
+    var lotsByNumber = await(lots);
+    var organisationsById = await(organisations);
+    var questionsByEvent = await(questions);
+    var rfxsById = new HashMap<String, ExportRfxResponse>();
+    rfxBatches.forEach(batch -> batch.join()
+        .forEach(rfx -> rfxsById.put(rfx.getRfxSetting().getRfxId(), rfx)));
+
+    var enriched = new ArrayList<ProjectExportData>(rows.size());
+    for (ProjectExportData row : rows) {
+      row.setLotDetail(lotsByNumber.get(row.getLotNumber()));
+      row.setOrganisationIdentity(organisationsById.get(row.getOrganisationId()));
+      if (Objects.isNull(row.getLotDetail()) || Objects.isNull(row.getOrganisationIdentity())) {
+        log.warn("Leaving project {} out of the export, lot or buyer not found", row.getProjectId());
+        continue;
+      }
+      row.setClarificationQuestions(questionsByEvent.getOrDefault(row.getFirstEventId(), 0L));
+      row.setFirstRfx(rfxsById.get(row.getFirstRfxId()));
+      if (Objects.nonNull(row.getLastRfxId())) {
+        row.setLastRfx(rfxsById.get(row.getLastRfxId()));
+      }
+      enriched.add(row);
+    }
+    log.info("Enriched {} of {} {} projects for export", enriched.size(), projects.size(),
+        agreement.getId());
+    return enriched;
+  }
+
+  /**
+   * Rfxs missing a publish or close date are broken in Jaggaer and are not exported
+   */
+  static boolean isPublished(final ExportRfxResponse rfx) {
+    return Objects.nonNull(rfx) && Objects.nonNull(rfx.getRfxSetting().getCloseDate())
+        && Objects.nonNull(rfx.getRfxSetting().getPublishDate());
+  }
+
+  private static ProjectExportData fromProject(final ProcurementProject project) {
+    var firstAndLastPublishedEvent = EventsHelper.getFirstAndLastPublishedEvent(project);
+    var event = firstAndLastPublishedEvent.getLeft();
+    var lastEvent = firstAndLastPublishedEvent.getRight();
+    var latestEvent = Objects.nonNull(lastEvent) ? lastEvent : event;
+
+    return ProjectExportData.builder().projectId(project.getId())
+        .projectName(project.getProjectName()).lotNumber(project.getLotNumber())
+        .organisationId(project.getOrganisationMapping().getOrganisationId())
+        .firstEventId(event.getId()).firstRfxId(event.getExternalEventId())
+        .lastRfxId(Objects.nonNull(lastEvent) ? lastEvent.getExternalEventId() : null)
+        .tenderStatus(latestEvent.getTenderStatus()).publishedDate(event.getPublishDate())
+        .lastUpdated(event.getUpdatedAt().getEpochSecond())
+        .changedAt(EventsHelper.getChangeMarker(project)).description(getSummaryOfWork(event))
+        .location(TemplateDataExtractor.getLocation(event))
+        .budgetRange(TemplateDataExtractor.getBudgetRangeData(event))
+        .expectedContractLength(TemplateDataExtractor.getExpectedContractLength(event))
+        .contractStartDate(TemplateDataExtractor.geContractStartData(event))
+        .employmentStatus(TemplateDataExtractor.getEmploymentStatus(event)).build();
+  }
+
+  /**
+   * Awarded projects also need the supplier list (for the winner), which makes for much larger
+   * responses, so they are searched in smaller batches
+   */
+  private List<CompletableFuture<Set<ExportRfxResponse>>> submitRfxSearches(
+      final Agreement agreement, final List<ProjectExportData> rows) {
+    var awarded = rows.stream()
+        .filter(row -> TenderStatus.COMPLETE.getValue().equals(row.getTenderStatus()))
+        .map(ProjectExportData::getLatestRfxId).collect(Collectors.toCollection(LinkedHashSet::new));
+    var published = new LinkedHashSet<String>();
+    rows.forEach(row -> {
+      published.add(row.getFirstRfxId());
+      if (Objects.nonNull(row.getLastRfxId())) {
+        published.add(row.getLastRfxId());
+      }
+    });
+    published.removeAll(awarded);
+
+    var searches = new ArrayList<CompletableFuture<Set<ExportRfxResponse>>>();
+    TendersAPIModelUtils.getBatches(new ArrayList<>(awarded), agreement.getAwardedBatchSize())
+        .forEach(batch -> searches.add(searchRfxs(batch,
+            Set.of(SUPPLIERS_COMPONENT, RESPONSE_COUNTERS_COMPONENT))));
+    TendersAPIModelUtils.getBatches(new ArrayList<>(published),
+        agreement.getPublishedBatchSize())
+        .forEach(batch -> searches.add(searchRfxs(batch, Set.of(RESPONSE_COUNTERS_COMPONENT))));
+    return searches;
+  }
+
+  private CompletableFuture<Set<ExportRfxResponse>> searchRfxs(final List<String> rfxIds,
+      final Set<String> components) {
+    return CompletableFuture
+        .supplyAsync(() -> jaggaerService.searchRFxWithComponents(Set.copyOf(rfxIds), components),
+            executor)
+        .exceptionally(e -> {
+          log.warn("Error while searching rfxs {}", rfxIds, e);
+          return Set.of();
+        });
+  }
+
+  private <K, V> Map<K, CompletableFuture<V>> submit(final Set<K> keys,
+      final Function<K, V> loader, final String description) {
+    var futures = new HashMap<K, CompletableFuture<V>>();
+    keys.forEach(key -> futures.put(key,
+        CompletableFuture.supplyAsync(() -> loader.apply(key), executor).exceptionally(e -> {
+          log.warn("Error while getting {} for {}", description, key, e);
+          return null;
+        })));
+    return futures;
+  }
+
+  private static <K, V> Map<K, V> await(final Map<K, CompletableFuture<V>> futures) {
+    var results = new HashMap<K, V>();
+    futures.forEach((key, future) -> {
+      var value = future.join();
+      if (Objects.nonNull(value)) {
+        results.put(key, value);
+      }
+    });
+    return results;
+  }
+
+  private static <K> Set<K> distinct(final List<ProjectExportData> rows,
+      final Function<ProjectExportData, K> key) {
+    return rows.stream().map(key).filter(Objects::nonNull).collect(Collectors.toSet());
+  }
+
+  private static String getSummaryOfWork(final ProcurementEvent event) {
+    try {
+      if (Objects.nonNull(event.getProcurementTemplatePayload())) {
+        var summary = EventsHelper.getData("Criterion 3", "Group 3", "Question 1",
+            event.getProcurementTemplatePayload().getCriteria());
+        if (!StringUtils.isBlank(summary)) {
+          return summary;
+        }
+      }
+    } catch (Exception e) {
+      log.debug("No summary of work for event {}", event.getId(), e);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,58 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.scheduler;
+
+import java.time.Instant;
+import java.util.Objects;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import uk.gov.crowncommercial.dts.scale.cat.model.agreements.LotDetail;
+import uk.gov.crowncommercial.dts.scale.cat.model.conclave_wrapper.generated.OrganisationProfileResponseInfo;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
+
+/**
+ * One published project with everything the opportunity exports need, as produced by the
+ * {@link ProjectEnrichmentPipeline}. The first event is the one the project was published with, the
+ * last (if any) the latest event published after it.
+ */
+@Setter
+@Getter
+@Builder
+class ProjectExportData {
+
+  private Integer projectId;
+
+  private String projectName, lotNumber, organisationId;
+
+  private Integer firstEventId;
+
+  private String firstRfxId, lastRfxId, tenderStatus;
+
+  private Instant publishedDate;
+
+  private Long lastUpdated;
+
+  /**
+   * Latest DB change to the project or any of its events
+   */
+  private Instant changedAt;
+
+  private String description, location, budgetRange, expectedContractLength, contractStartDate,
+      employmentStatus;
+
+  private LotDetail lotDetail;
+
+  private OrganisationProfileResponseInfo organisationIdentity;
+
+  private long clarificationQuestions;
+
+  private ExportRfxResponse firstRfx, lastRfx;
+
+  String getLatestRfxId() {
+    return Objects.nonNull(lastRfxId) ? lastRfxId : firstRfxId;
+  }
+
+  ExportRfxResponse getLatestRfx() {
+    return Objects.nonNull(lastRfxId) ? lastRfx : firstRfx;
+  }
+
+}
@@ -1,23 +1,25 @@
 package uk.gov.crowncommercial.dts.scale.cat.service.scheduler;
 
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import com.amazonaws.services.s3.AmazonS3;
@@ -27,18 +29,18 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import net.javacrumbs.shedlock.core.SchedulerLock;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig.Agreement;
 import uk.gov.crowncommercial.dts.scale.cat.config.paas.AWSS3Service;
+import uk.gov.crowncommercial.dts.scale.cat.model.agreements.AgreementDetail;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OpportunityCsvRow;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
-import uk.gov.crowncommercial.dts.scale.cat.model.generated.TenderStatus;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Supplier;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
 import uk.gov.crowncommercial.dts.scale.cat.service.AgreementsService;
-import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
-import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
 import uk.gov.crowncommercial.dts.scale.cat.service.ocds.EventStatusHelper;
 import uk.gov.crowncommercial.dts.scale.cat.service.ocds.EventsHelper;
+import uk.gov.crowncommercial.dts.scale.cat.utils.S3MultipartOutputStream;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
 /**
@@ -51,216 +53,215 @@ public class ProjectsCSVGenerationScheduledTask {
 
   private final RetryableTendersDBDelegate retryableTendersDBDelegate;
   private final AgreementsService agreementsService;
-  private final ConclaveService conclaveService;
-  private final JaggaerService jaggaerService;
+  private final ProjectEnrichmentPipeline projectEnrichmentPipeline;
   private final Environment env;
   private final AmazonS3 tendersS3Client;
   private final AWSS3Service tendersS3Service;
-  private static final String DOS6_AGREEMENT_ID = "RM1043.8";
   private static final Integer JAGGAER_SUPPLIER_WINNER_STATUS = 3;
   public static final String CSV_FILE_NAME = "opportunity_data.csv";
   public static final String CSV_FILE_PREFIX = "/Oppertunity/";
   public static final String PROJECT_UI_LINK_KEY = "config.external.s3.oppertunities.ui.link";
-  
-  @Value("${config.oppertunities.published.batch.size: 80}")
-  private int publishedBatchSize;
-  
-  @Value("${config.oppertunities.awarded.batch.size: 20}")
-  private int awardedBatchSize;
+  public static final String GZIP_ENCODING = "gzip";
 
-  @Transactional
-  @Scheduled(cron = "${config.external.s3.oppertunities.schedule}")
-  @SchedulerLock(name = "CSVGeneration_scheduledTask", 
-    lockAtLeastForString = "PT5M", lockAtMostForString = "PT10M")
-  public void generateCSV() {
-    log.info("Started oppertunities CSV generation");
-    writeOppertunitiesToCsv();
-  }
+  @Value("${config.oppertunities.csv.gzip: false}")
+  private boolean gzip;
 
-  public void writeOppertunitiesToCsv() {
+  @Value("${config.oppertunities.csv.upload.part.size: 5242880}")
+  private int uploadPartSize;
 
-    var events = retryableTendersDBDelegate.findPublishedEventsByAgreementId(DOS6_AGREEMENT_ID);
-    log.info("Dos6 agreements count for CSV generation: {}", events.size());
+  @Value("${config.oppertunities.enrichment.batch.size: 500}")
+  private int enrichmentBatchSize;
+  
+  /**
+   * Writes the CSV of the agreement's published oppertunities, run by the
+   * {@link OpportunityExportScheduler}
+   *
+   * @return the number of rows written
+   */
+  @Transactional
+  public int generateCSV(final Agreement agreement) {
+    log.info("Started oppertunities CSV generation for {}", agreement.getId());
+    var events = retryableTendersDBDelegate.findPublishedEventsByAgreementId(agreement.getId());
+    var cachedRows = getCachedRows(agreement);
 
-    try {
-      var tempFile = Files.createTempFile("temp", ".csv");
-      var writer = new PrintWriter(Files.newBufferedWriter(tempFile, StandardOpenOption.WRITE));
-      writer.write('\ufeff');
-      var csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT);
-      var csvDataList = new ArrayList<CSVData>();
-      
-      csvPrinter.printRecord("ID", "Opportunity", "Link", "Framework", "Category", "Specialist",
-          "Organization Name", "Buyer Domain", "Location Of The Work", "Published At", "Open For",
-          "Expected Contract Length", "Budget range", "Applications from SMEs",
-          "Applications from Large Organisations", "Total Organisations", "Status",
-          "Winning supplier", "Size of supplier", "Contract amount", "Contract start date",
-          "Clarification questions", "Employment status");
+    // only projects which changed, or whose status can still move on, are enriched again
+    var reusedRows = new ArrayList<String>();
+    var changed = new ArrayList<ProcurementProject>();
+    for (ProcurementProject project : events) {
+      var cachedRow = cachedRows.get(project.getId());
+      var changeMarker = EventsHelper.getChangeMarker(project);
+      if (Objects.nonNull(cachedRow) && cachedRow.isFinalStatus()
+          && Objects.equals(cachedRow.getChangeMarker(), changeMarker)) {
+        reusedRows.add(cachedRow.getRowData());
+      } else {
+        changed.add(project);
+      }
+    }
+    log.info("{} projects count for CSV generation: {}, {} to refresh", agreement.getId(),
+        events.size(), changed.size());
 
-      populateCSVData(events, csvPrinter, csvDataList);
-      populateJaggaerFields(csvDataList);
-      populateCSVPrinter(csvDataList, csvPrinter);
+    var batches = TendersAPIModelUtils.getBatches(changed, enrichmentBatchSize);
+    var rows = writeOppertunitiesToCsv(agreement, reusedRows,
+        batches.stream().map(batch -> projectEnrichmentPipeline.enrich(agreement, batch)));
+    deleteUnpublishedRows(cachedRows,
+        events.stream().map(ProcurementProject::getId).collect(Collectors.toSet()));
+    return rows;
+  }
 
-      csvPrinter.flush();
-      csvPrinter.close();
+  /**
+   * Writes the CSV from projects already enriched by the full search sync. The caller holds the
+   * agreement's CSV lock.
+   *
+   * @param publishedProjectIds all the agreement's published projects, including any the
+   *        enrichment left out, whose rows are kept for the next run
+   */
+  int writeOppertunitiesToCsv(final Agreement agreement, final List<ProjectExportData> projects,
+      final Set<Integer> publishedProjectIds) {
+    var rows = writeOppertunitiesToCsv(agreement, List.of(), Stream.of(projects));
+    deleteUnpublishedRows(getCachedRows(agreement), publishedProjectIds);
+    return rows;
+  }
 
-      transferToS3(tempFile);
-      log.info("Successfully generated CSV data");
-    } catch (Exception e) {
-      log.error("Error While generating Projects CSV ", e);
-    }
+  /**
+   * S3 key of the agreement's CSV file
+   */
+  public static String getCsvKey(final Agreement agreement) {
+    return StringUtils.isBlank(agreement.getCsvKey())
+        ? CSV_FILE_PREFIX + agreement.getId() + "/" + CSV_FILE_NAME
+        : agreement.getCsvKey();
   }
 
-  private void populateCSVData(Set<ProcurementProject> events, CSVPrinter csvPrinter, List<CSVData> csvDataList)
-      throws Exception {
+  /**
+   * Streams the rows straight into an S3 multipart upload as each batch of projects is enriched,
+   * so neither memory nor disk use grows with the number of oppertunities. The rows of each batch
+   * are kept for the next run to reuse.
+   */
+  private int writeOppertunitiesToCsv(Agreement agreement, List<String> reusedRows,
+      Stream<List<ProjectExportData>> projectBatches) {
+    var tendersS3ObjectKey = getCsvKey(agreement);
+    var objectMetadata = new ObjectMetadata();
+    objectMetadata.setContentType("text/csv");
+    if (gzip) {
+      objectMetadata.setContentEncoding(GZIP_ENCODING);
+    }
+    var upload = new S3MultipartOutputStream(tendersS3Client,
+        tendersS3Service.getCredentials().getBucketName(), tendersS3ObjectKey, objectMetadata,
+        uploadPartSize);
     try {
-      log.info("Populating CSV data");
-      var agreementDetails = agreementsService.getAgreementDetails(DOS6_AGREEMENT_ID);
-      for (ProcurementProject project : events) {
-
-        var totalOrganisationsCountAndWinningSupplier = Pair.of("", "");
-        var firstAndLastPublishedEvent =
-            EventsHelper.getFirstAndLastPublishedEvent(project);
-        var event = firstAndLastPublishedEvent.getLeft();
-
-        var lotDetails =
-            agreementsService.getLotDetails(DOS6_AGREEMENT_ID, project.getLotNumber());
-        var organisationIdentity = conclaveService.getOrganisationIdentity(
-            project.getOrganisationMapping().getOrganisationId());
+      var writer = new BufferedWriter(new OutputStreamWriter(
+          gzip ? new GZIPOutputStream(upload) : upload, StandardCharsets.UTF_8));
+      writer.write('\ufeff');
+      writeLine(writer, CSVFormat.DEFAULT.format("ID", "Opportunity", "Link", "Framework",
+          "Category", "Specialist", "Organization Name", "Buyer Domain", "Location Of The Work",
+          "Published At", "Open For", "Expected Contract Length", "Budget range",
+          "Applications from SMEs", "Applications from Large Organisations", "Total Organisations",
+          "Status", "Winning supplier", "Size of supplier", "Contract amount",
+          "Contract start date", "Clarification questions", "Employment status"));
 
-        String rfxId = firstAndLastPublishedEvent.getLeft().getExternalEventId();
-        String tStatus = firstAndLastPublishedEvent.getLeft().getTenderStatus();
-        
-        if(Objects.nonNull(firstAndLastPublishedEvent.getRight())){
-          rfxId = firstAndLastPublishedEvent.getRight().getExternalEventId();
-          tStatus = firstAndLastPublishedEvent.getRight().getTenderStatus();
+      log.info("Populating CSV data");
+      for (String row : reusedRows) {
+        writeLine(writer, row);
+      }
+      var agreementDetails = agreementsService.getAgreementDetails(agreement.getId());
+      var rows = reusedRows.size();
+      for (var batches = projectBatches.iterator(); batches.hasNext();) {
+        var renderedRows = new ArrayList<OpportunityCsvRow>();
+        for (ProjectExportData project : batches.next()) {
+          var csvData = toCSVData(project, agreementDetails);
+          if (csvData != null) {
+            var row = toCSVRow(csvData);
+            writeLine(writer, row);
+            renderedRows.add(OpportunityCsvRow.builder().projectId(project.getProjectId())
+                .agreementId(agreement.getId()).changeMarker(project.getChangedAt())
+                .finalStatus(EventStatusHelper.isFinal(project.getLatestRfx())).rowData(row)
+                .updatedAt(Instant.now()).build());
+            rows++;
+          }
         }
-
-        var csvData = CSVData.builder().rfxId(rfxId).tenderstatus(tStatus)
-            .projectId(event.getProject().getId()).oppertunity(event.getProject().getProjectName())
-            .link(env.getProperty(PROJECT_UI_LINK_KEY) + "?projectId=" + event.getProject().getId())
-            .framework(agreementDetails.getName()).category(lotDetails.getName())
-            .orgName(organisationIdentity.get().getIdentifier().getLegalName())
-            .buyerDomain(organisationIdentity.get().getIdentifier().getUri())
-            .locationOfWork(TemplateDataExtractor.getLocation(event))
-            .publishedDate(event.getPublishDate())
-            .expectedContractLength(TemplateDataExtractor.getExpectedContractLength(event))
-            .budgetRange(StringUtils.isBlank(TemplateDataExtractor.getBudgetRangeData(event)) ? ""
-                : TemplateDataExtractor.getBudgetRangeData(event))
-            .totalOrganisations(totalOrganisationsCountAndWinningSupplier.getRight())
-            .winningSupplier(totalOrganisationsCountAndWinningSupplier.getLeft())
-            .contractStartDate(TemplateDataExtractor.geContractStartData(event))
-            .clarificationQuestions(
-                retryableTendersDBDelegate.findQuestionsCountByEventId(event.getId()))
-            .employmentStatus(TemplateDataExtractor.getEmploymentStatus(event)).build();
-        csvDataList.add(csvData);
+        retryableTendersDBDelegate.saveOpportunityCsvRows(renderedRows);
       }
+
+      // completes the upload
+      writer.close();
+      log.info("Successfully uploaded oppertunities file to S3: {}", tendersS3ObjectKey);
+      log.info("Successfully generated CSV data, {} rows", rows);
+      return rows;
     } catch (Exception e) {
-      log.error("Error while generating CSV generator ", e);
+      upload.abort();
+      throw new IllegalStateException(
+          "Error while generating " + agreement.getId() + " projects CSV", e);
     }
   }
 
-  private void populateJaggaerFields(List<CSVData> csvDataList) {
-    Pair<List<CSVData>, List<CSVData>> splitAwardedProjects = splitAwardedProjects(csvDataList);
-    List<List<CSVData>> awarded = TendersAPIModelUtils.getBatches(splitAwardedProjects.getLeft(), awardedBatchSize);
-    List<List<CSVData>> published = TendersAPIModelUtils.getBatches(splitAwardedProjects.getRight(), publishedBatchSize);
-    for (List<CSVData> dataList : awarded) {
-      Set<String> collect = dataList.stream().map(e -> e.getRfxId()).collect(Collectors.toSet());
-      getJaggaerData(csvDataList, collect, Set.of("SUPPLIERS", "supplier_Response_Counters"));
-      log.info("Awarded batch generated: " + dataList.size());
-    }
-    
-    for (List<CSVData> dataList : published) {
-      Set<String> collect = dataList.stream().map(e -> e.getRfxId()).collect(Collectors.toSet());
-      getJaggaerData(csvDataList, collect, Set.of("supplier_Response_Counters"));
-      log.info("Published batch generated: " + dataList.size());
-    }
-  }
-  
-  private void populateCSVPrinter(List<CSVData> csvDataList, CSVPrinter csvPrinter) {
+  private CSVData toCSVData(ProjectExportData project, AgreementDetail agreementDetails) {
+    var rfx = project.getLatestRfx();
     //removed broken projects
-    csvDataList = csvDataList.stream().filter(e -> e.getStatus() != null).toList();
-    for (CSVData csvData : csvDataList) {
-      try {
-        csvPrinter.printRecord(csvData.getProjectId(), csvData.getOppertunity(), csvData.getLink(),
-            csvData.getFramework(), csvData.getCategory(), "", csvData.getOrgName(),
-            csvData.getBuyerDomain(), csvData.getLocationOfWork(), csvData.getPublishedDate(),
-            csvData.getOpenFor(), csvData.getExpectedContractLength(), csvData.getBudgetRange(), "",
-            "", csvData.getTotalOrganisations(), csvData.getStatus(), csvData.getWinningSupplier(),
-            "", "", csvData.getContractStartDate(), csvData.getClarificationQuestions(),
-            csvData.getEmploymentStatus());
-      } catch (Exception e) {
-      }
+    if (!ProjectEnrichmentPipeline.isPublished(rfx)) {
+      return null;
     }
+    var organisationIdentity = project.getOrganisationIdentity().getIdentifier();
+
+    return CSVData.builder().rfxId(project.getLatestRfxId())
+        .tenderstatus(project.getTenderStatus()).projectId(project.getProjectId())
+        .oppertunity(project.getProjectName())
+        .link(env.getProperty(PROJECT_UI_LINK_KEY) + "?projectId=" + project.getProjectId())
+        .framework(agreementDetails.getName()).category(project.getLotDetail().getName())
+        .orgName(organisationIdentity.getLegalName())
+        .buyerDomain(organisationIdentity.getUri())
+        .locationOfWork(project.getLocation())
+        .publishedDate(project.getPublishedDate())
+        .expectedContractLength(project.getExpectedContractLength())
+        .budgetRange(StringUtils.isBlank(project.getBudgetRange()) ? ""
+            : project.getBudgetRange())
+        .totalOrganisations(
+            rfx.getSupplierResponseCounters().getLastRound().getNumSupplResponded() + "")
+        .winningSupplier(getWinningSupplier(rfx))
+        .openFor(TemplateDataExtractor.getOpenForCount(rfx.getRfxSetting().getPublishDate(),
+            rfx.getRfxSetting().getCloseDate()))
+        .status(EventStatusHelper.getEventStatus(rfx.getRfxSetting()))
+        .contractStartDate(project.getContractStartDate())
+        .clarificationQuestions(project.getClarificationQuestions())
+        .employmentStatus(project.getEmploymentStatus()).build();
   }
 
-  private void getJaggaerData(List<CSVData> csvDataList,
-      Set<String> collect, Set<String> components) {
-    try {
-      var searchRFxWithComponents =
-          jaggaerService.searchRFxWithComponents(collect, components);
-      
-    //removed broken projects
-      searchRFxWithComponents = searchRFxWithComponents.stream().filter(e -> e.getRfxSetting().getCloseDate() != null
-          && e.getRfxSetting().getPublishDate() != null).collect(Collectors.toSet());
+  private static String toCSVRow(CSVData csvData) {
+    return CSVFormat.DEFAULT.format(csvData.getProjectId(), csvData.getOppertunity(),
+        csvData.getLink(), csvData.getFramework(), csvData.getCategory(), "", csvData.getOrgName(),
+        csvData.getBuyerDomain(), csvData.getLocationOfWork(), csvData.getPublishedDate(),
+        csvData.getOpenFor(), csvData.getExpectedContractLength(), csvData.getBudgetRange(), "",
+        "", csvData.getTotalOrganisations(), csvData.getStatus(), csvData.getWinningSupplier(),
+        "", "", csvData.getContractStartDate(), csvData.getClarificationQuestions(),
+        csvData.getEmploymentStatus());
+  }
 
-      for (ExportRfxResponse rfx : searchRFxWithComponents) {
-        String wSupplier = "";
-        if (rfx.getSuppliersList() != null) {
-          Optional<Supplier> winningSupplier = rfx.getSuppliersList().getSupplier().stream()
-              .filter(e -> e.getStatusCode() == JAGGAER_SUPPLIER_WINNER_STATUS).findFirst();
-          if (winningSupplier.isPresent()) {
-            wSupplier = winningSupplier.get().getCompanyData().getName();
-          }
-        }
-        for (CSVData csvData : csvDataList) {
-          if (csvData.getRfxId().equals(rfx.getRfxSetting().getRfxId())) {
-            //winning supper details
-            csvData.setWinningSupplier(wSupplier);
-            // Total org count
-            csvData.setTotalOrganisations(
-                rfx.getSupplierResponseCounters().getLastRound().getNumSupplResponded() + "");
-            // Open for
-            csvData.setOpenFor(TemplateDataExtractor.getOpenForCount(
-                rfx.getRfxSetting().getPublishDate(), rfx.getRfxSetting().getCloseDate()));
-            // Status
-            csvData.setStatus(EventStatusHelper.getEventStatus(rfx.getRfxSetting()));
-          }
-        }
-      }
-    } catch (Exception e) {
-      log.warn("Error while getTotalOrganisationsCountAndWinningSupplier ", e);
-    }
+  private static void writeLine(Writer writer, String row) throws IOException {
+    writer.write(row);
+    writer.write(CSVFormat.DEFAULT.getRecordSeparator());
   }
-  
 
-  private Pair<List<CSVData>, List<CSVData>> splitAwardedProjects(List<CSVData> collection) {
-    var awardedList = collection.stream()
-        .filter(e -> e.getTenderstatus().equals((TenderStatus.COMPLETE.getValue()))).toList();
+  private Map<Integer, OpportunityCsvRow> getCachedRows(Agreement agreement) {
+    return retryableTendersDBDelegate.findOpportunityCsvRowsByAgreementId(agreement.getId())
+        .stream().collect(Collectors.toMap(OpportunityCsvRow::getProjectId, Function.identity()));
+  }
 
-    var differences = collection.stream().filter(element -> !awardedList.contains(element))
-        .collect(Collectors.toList());
-    
-    return Pair.of(awardedList, differences);
+  private void deleteUnpublishedRows(Map<Integer, OpportunityCsvRow> cachedRows,
+      Set<Integer> publishedProjectIds) {
+    var unpublished = cachedRows.values().stream()
+        .filter(row -> !publishedProjectIds.contains(row.getProjectId())).toList();
+    if (!unpublished.isEmpty()) {
+      retryableTendersDBDelegate.deleteOpportunityCsvRows(unpublished);
+    }
   }
 
-  /**
-   * Send oppertunities CSV file to s3
-   */
-  private void transferToS3(Path tempFile) {
-    try {
-      var fileStream = Files.newInputStream(tempFile);
-      var tendersS3ObjectKey = CSV_FILE_PREFIX + CSV_FILE_NAME;
-      var objectMetadata = new ObjectMetadata();
-      objectMetadata.setContentLength(Files.readAllBytes(tempFile).length);
-      objectMetadata.setContentType("text/csv");
-      tendersS3Client.putObject(tendersS3Service.getCredentials().getBucketName(),
-          tendersS3ObjectKey, fileStream, objectMetadata);
-      log.info("Successfully uploaded oppertunities file to S3: {}", tendersS3ObjectKey);
-      // Delete the temporary file
-      Files.delete(tempFile);
-    } catch (Exception e) {
-      log.error("Error in transfer oppertunies to S3 ", e);
+  private static String getWinningSupplier(ExportRfxResponse rfx) {
+    if (rfx.getSuppliersList() != null) {
+      Optional<Supplier> winningSupplier = rfx.getSuppliersList().getSupplier().stream()
+          .filter(e -> e.getStatusCode() == JAGGAER_SUPPLIER_WINNER_STATUS).findFirst();
+      if (winningSupplier.isPresent()) {
+        return winningSupplier.get().getCompanyData().getName();
+      }
     }
+    return "";
   }
 
 }
@@ -1,213 +1,283 @@
 package uk.gov.crowncommercial.dts.scale.cat.service.scheduler;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import lombok.Builder;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import net.javacrumbs.shedlock.core.SchedulerLock;
+import net.javacrumbs.shedlock.core.LockProvider;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig.Agreement;
 import uk.gov.crowncommercial.dts.scale.cat.model.agreements.AgreementDetail;
-import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
 import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.SearchSyncState;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPublicDetail.StatusEnum;
-import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
 import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
-import uk.gov.crowncommercial.dts.scale.cat.repo.search.SearchProjectRepo;
 import uk.gov.crowncommercial.dts.scale.cat.service.AgreementsService;
-import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
-import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
 import uk.gov.crowncommercial.dts.scale.cat.service.ocds.EventStatusHelper;
-import uk.gov.crowncommercial.dts.scale.cat.service.ocds.EventsHelper;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.EventSubStatus;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.LocalProjectSearchIndex;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSearchIndexService;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
+/**
+ * Keeps the opportunities index in line with the tenders DB. The regular run is incremental: it
+ * only re-indexes projects changed since the last watermark, plus those whose Jaggaer status can
+ * still move on (open, or closed and awaiting an outcome) as those changes never touch the DB. A
+ * less frequent full run rebuilds everything into a new index and swaps the agreement's aliases over
+ * to it, and hands the same enriched data to the CSV export. Runs are per agreement, see
+ * {@link OpportunityExportScheduler}.
+ * <p>
+ * When enabled, the {@link LocalProjectSearchIndex} is written with the same documents, and in
+ * its primary mode replaces OpenSearch here too.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ProjectsToOpenSearchScheduledTask {
 
-  private final SearchProjectRepo searchProjectRepo;
   private final RetryableTendersDBDelegate retryableTendersDBDelegate;
-  private static final String DOS6_AGREEMENT_ID = "RM1043.8";
+  private static final String SYNC_NAME_PREFIX = "ProjectsToOpenSearch_";
+  private static final Set<String> FINAL_SUB_STATUSES =
+      Set.of(EventSubStatus.AWARDED.getValue(), EventSubStatus.CANCELLED.getValue());
   private final AgreementsService agreementsService;
-  private final ConclaveService conclaveService;
-  private final JaggaerService jaggaerService;
+  private final ProjectEnrichmentPipeline projectEnrichmentPipeline;
+  private final ProjectsCSVGenerationScheduledTask projectsCSVGenerationScheduledTask;
+  private final ElasticsearchOperations elasticsearchOperations;
+  private final ProjectSearchIndexService projectSearchIndexService;
+  private final Optional<LocalProjectSearchIndex> localProjectSearchIndex;
+  private final LockProvider lockProvider;
   
-  @Value("${config.oppertunities.published.batch.size: 80}")
+  @Value("${config.oppertunities.opensearch.batch.size: 80}")
   private int bathcSize;
+
+  @Value("${config.external.projects.sync.overlap: PT5M}")
+  private Duration syncOverlap;
   
+  /**
+   * Incremental sync of the agreement, or a full one when it has never been indexed
+   *
+   * @return the number of projects indexed
+   */
   @Transactional
-  @Scheduled(cron = "${config.external.projects.sync.schedule}")
-  @SchedulerLock(name = "ProjectsToOpenSearch_scheduledTask", 
-  lockAtLeastForString = "PT5M", lockAtMostForString = "PT10M")
-  public void saveProjectsDataToOpenSearch() {
-    log.info("Started projects data to open search scheduler process");
-    var events =
-        retryableTendersDBDelegate.findPublishedEventsByAgreementId(DOS6_AGREEMENT_ID);
-    log.info("Dos6 agreements count to update in opensearch: {}", events.size());
-    
-    var agreementDetails = agreementsService.getAgreementDetails(DOS6_AGREEMENT_ID);
-    this.reinstateIndex();
-    this.saveProjectDataAsBatches(events, agreementDetails);
-    
-    log.info("Successfully updated projects data in open search");
-  }
-  
-  private void saveProjectDataAsBatches(Set<ProcurementProject> events,
-      AgreementDetail agreementDetail) {
-    var eventSearchDataList = new ArrayList<ProcurementEventSearch>();
-    List<List<ProcurementProject>> batches =
-        TendersAPIModelUtils.getBatches(new ArrayList<ProcurementProject>(events), bathcSize);
-    for (List<ProcurementProject> batch : batches) {
-      mapToOpenSearch(batch, eventSearchDataList, agreementDetail);
-      searchProjectRepo.saveAll(eventSearchDataList);
-      log.info("successfully updated events: "+eventSearchDataList.size());
-      eventSearchDataList.clear();
+  @CacheEvict(value = {"getProjectSummery", "getProjectSuggestions"}, allEntries = true)
+  public int sync(final Agreement agreement) {
+    var syncState = getSyncState(agreement);
+    var hasIndex = isLocalPrimary()
+        ? localProjectSearchIndex.get().hasAgreement(agreement.getId())
+        : projectSearchIndexService.hasAgreementIndex(agreement.getId());
+    if (Objects.isNull(syncState.getWatermark()) || !hasIndex) {
+      log.info("No index or watermark found for {} projects in open search, running a full sync",
+          agreement.getId());
+      return this.fullSync(agreement, syncState);
     }
+    return this.incrementalSync(agreement, syncState);
   }
-  
-  private List<ProcurementEventSearch> mapToOpenSearch(List<ProcurementProject> events,
-      List<ProcurementEventSearch> eventSearchDataList,  AgreementDetail agreementDetails) {
 
-    var eventSearchDataListDTO = new ArrayList<ProcurementEventSearchDTO>();
-    
-    for (ProcurementProject project : events) {
-      try {
-        var firstAndLastPublishedEvent = EventsHelper.getFirstAndLastPublishedEvent(project);
-        var event = firstAndLastPublishedEvent.getLeft();
-
-        var lotDetails = agreementsService.getLotDetails(DOS6_AGREEMENT_ID, project.getLotNumber());
-        var organisationIdentity = conclaveService
-            .getOrganisationIdentity(project.getOrganisationMapping().getOrganisationId());
-        
-        String srfxId = null;
-        if (Objects.nonNull(firstAndLastPublishedEvent.getRight())) {
-          srfxId = firstAndLastPublishedEvent.getRight().getExternalEventId();
-        }
+  /**
+   * Full rebuild of the agreement's index
+   *
+   * @return the number of projects indexed
+   */
+  @Transactional
+  @CacheEvict(value = {"getProjectSummery", "getProjectSuggestions"}, allEntries = true)
+  public int reconcile(final Agreement agreement) {
+    return this.fullSync(agreement, getSyncState(agreement));
+  }
+
+  private int fullSync(Agreement agreement, SearchSyncState syncState) {
+    var startedAt = Instant.now();
+    log.info("Started {} projects data to open search full sync", agreement.getId());
+    var events = retryableTendersDBDelegate.findPublishedEventsByAgreementId(agreement.getId());
+    log.info("{} projects count to update in opensearch: {}", agreement.getId(), events.size());
 
-        var eventSearchDataDTO = ProcurementEventSearchDTO.builder().rfxId(firstAndLastPublishedEvent.getLeft().getExternalEventId())
-            .secondRfxId(srfxId).projectId(event.getProject().getId()).description(getSummaryOfWork(event))
-            .budgetRange(TemplateDataExtractor.getBudgetRangeData(event))
-            .buyerName(organisationIdentity.get().getIdentifier().getLegalName())
-            .projectName(event.getProject().getProjectName()).location(TemplateDataExtractor.getLocation(event))
-            .lot(event.getProject().getLotNumber()).lotDescription(lotDetails.getDescription()).lastUpdated(event.getUpdatedAt().getEpochSecond())
-            .agreement(agreementDetails.getName()).build();
-        
-        eventSearchDataListDTO.add(eventSearchDataDTO);
-      } catch (Exception e) {
-        log.error("Error while saving project details to opensearch", e);
+    var agreementDetails = agreementsService.getAgreementDetails(agreement.getId());
+    var projects = projectEnrichmentPipeline.enrich(agreement, events);
+    var eventSearchDataList = toSearchDataList(agreement, projects, agreementDetails);
+    if (!isLocalPrimary()) {
+      var index = projectSearchIndexService.createVersionedIndex(agreement.getId());
+      try {
+        this.saveProjectDataAsBatches(eventSearchDataList, index);
+        projectSearchIndexService.publish(agreement.getId(), index);
+      } catch (RuntimeException e) {
+        projectSearchIndexService.discard(index);
+        throw e;
       }
     }
-    populateStatus(eventSearchDataListDTO);
-    populateSubStatus(eventSearchDataListDTO);
-    populateSearchData(eventSearchDataListDTO, eventSearchDataList);
-    return eventSearchDataList;
+    saveToLocalIndex(agreement,
+        local -> local.replaceAgreement(agreement.getId(), eventSearchDataList));
+    writeCsv(agreement, projects, events);
+
+    syncState.setWatermark(startedAt);
+    syncState.setLastFullSyncAt(startedAt);
+    this.saveSyncState(syncState);
+    log.info("Successfully updated {} projects data in open search", agreement.getId());
+    return eventSearchDataList.size();
   }
-  
-  private void populateStatus(List<ProcurementEventSearchDTO> searchDataDTO) {
-    Set<String> rfxIds = searchDataDTO.stream().map(e -> e.getRfxId()).collect(Collectors.toSet());
-    var rfxResponse =
-        jaggaerService.searchRFxWithComponents(rfxIds, Set.of("supplier_Response_Counters"));
-    
-    // removed broken projects
-    rfxResponse = rfxResponse.stream().filter(
-        e -> e.getRfxSetting().getCloseDate() != null && e.getRfxSetting().getPublishDate() != null)
-        .collect(Collectors.toSet());
-    
-    for (ExportRfxResponse exportRfxResponse : rfxResponse) {
-      for (ProcurementEventSearchDTO data : searchDataDTO) {
-        if (data.getRfxId().equals(exportRfxResponse.getRfxSetting().getRfxId())) {
-          var eventStatus = EventStatusHelper.getEventStatus(exportRfxResponse.getRfxSetting());
-          data.setStatus(eventStatus);
-          if (eventStatus.equals(StatusEnum.CLOSED.getValue())) {
-            data.setSubStatus(EventStatusHelper.getSubStatus(exportRfxResponse.getRfxSetting()));
-          }
-        }
+
+  private int incrementalSync(Agreement agreement, SearchSyncState syncState) {
+    var startedAt = Instant.now();
+    var since = syncState.getWatermark().minus(syncOverlap);
+    log.info("Started incremental {} projects data to open search sync, changes since {}",
+        agreement.getId(), since);
+
+    var projects = new HashSet<ProcurementProject>(retryableTendersDBDelegate
+        .findPublishedEventsByAgreementIdUpdatedSince(agreement.getId(), since));
+    var changedIds = projects.stream().map(ProcurementProject::getId).collect(Collectors.toSet());
+
+    // Jaggaer status changes don't bump updated_at, so anything not yet final is re-checked
+    var agreementAlias = ProjectSearchIndexService.getAgreementAlias(agreement.getId());
+    Set<Integer> pendingIds;
+    if (isLocalPrimary()) {
+      pendingIds = new HashSet<>(localProjectSearchIndex.get()
+          .findProjectIdsNotIn(agreement.getId(), FINAL_SUB_STATUSES));
+      pendingIds.removeAll(changedIds);
+    } else {
+      var pendingQuery = new CriteriaQuery(new Criteria("subStatus.raw").notIn(FINAL_SUB_STATUSES));
+      try (var hits = elasticsearchOperations.searchForStream(pendingQuery,
+          ProcurementEventSearch.class, agreementAlias)) {
+        pendingIds = hits.stream().map(SearchHit::getContent)
+            .map(ProcurementEventSearch::getProjectId).filter(Objects::nonNull)
+            .filter(id -> !changedIds.contains(id)).collect(Collectors.toSet());
       }
     }
-  }
-  
-  private void populateSubStatus(List<ProcurementEventSearchDTO> searchDataDTO) {
-    Set<String> rfxIds = searchDataDTO.stream()
-        .map(e -> e.getSecondRfxId()).collect(Collectors.toSet());
-    Set<ExportRfxResponse> rfxResponse =
-        jaggaerService.searchRFxWithComponents(rfxIds, Set.of("supplier_Response_Counters"));
-    
-    for (ExportRfxResponse exportRfxResponse : rfxResponse) {
-      for (ProcurementEventSearchDTO data : searchDataDTO) {
-        if (data.getSecondRfxId() != null
-            && data.getSecondRfxId().equals(exportRfxResponse.getRfxSetting().getRfxId())) {
-          data.setSubStatus(EventStatusHelper.getSubStatus(exportRfxResponse.getRfxSetting()));
-        }
+    if (!pendingIds.isEmpty()) {
+      projects.addAll(retryableTendersDBDelegate.findProcurementProjectsByIdIn(pendingIds));
+    }
+    log.info("{} projects to refresh in opensearch: {} changed, {} awaiting a status change",
+        agreement.getId(), changedIds.size(), pendingIds.size());
+
+    var indexed = 0;
+    if (!projects.isEmpty()) {
+      var agreementDetails = agreementsService.getAgreementDetails(agreement.getId());
+      var eventSearchDataList = toSearchDataList(agreement,
+          projectEnrichmentPipeline.enrich(agreement, projects), agreementDetails);
+      if (!isLocalPrimary()) {
+        this.saveProjectDataAsBatches(eventSearchDataList, agreementAlias);
+        // visible to searches before the search cache is evicted
+        elasticsearchOperations.indexOps(agreementAlias).refresh();
       }
+      saveToLocalIndex(agreement, local -> local.save(eventSearchDataList));
+      indexed = eventSearchDataList.size();
     }
-  }
 
-  private void populateSearchData(List<ProcurementEventSearchDTO> searchDataDTO,
-      List<ProcurementEventSearch> searchDataList) {
-    //removed broken projects
-    searchDataDTO = searchDataDTO.stream().filter(e -> e.getStatus() != null).toList();
-    
-    searchDataDTO.stream().forEach(dto -> {
-      ProcurementEventSearch searchData = new ProcurementEventSearch();
-      BeanUtils.copyProperties(dto, searchData);
-      searchDataList.add(searchData);
-    });
+    syncState.setWatermark(startedAt);
+    this.saveSyncState(syncState);
+    log.info("Successfully refreshed {} projects data in open search", agreement.getId());
+    return indexed;
   }
-  
-  private static String getSummaryOfWork(ProcurementEvent event) {
+
+  /**
+   * Hands the enriched projects on to the CSV export, under the CSV export's lock as both write the
+   * agreement's CSV file and cached rows. Skipped while the CSV export holds it, as it is writing
+   * the same projects.
+   */
+  private void writeCsv(Agreement agreement, List<ProjectExportData> projects,
+      Set<ProcurementProject> published) {
+    var lockName = OpportunityExportScheduler.getCsvLockName(agreement);
+    var lock = lockProvider.lock(OpportunityExportScheduler.getLockConfiguration(lockName));
+    if (lock.isEmpty()) {
+      log.info("{} is held, not writing the {} projects CSV after full sync", lockName,
+          agreement.getId());
+      return;
+    }
     try {
-      if (Objects.nonNull(event.getProcurementTemplatePayload())) {
-        var summary = EventsHelper.getData("Criterion 3", "Group 3", "Question 1",
-            event.getProcurementTemplatePayload().getCriteria());
-        if (!StringUtils.isBlank(summary)) {
-          return summary;
+      projectsCSVGenerationScheduledTask.writeOppertunitiesToCsv(agreement, projects,
+          published.stream().map(ProcurementProject::getId).collect(Collectors.toSet()));
+    } catch (RuntimeException e) {
+      // the index is published regardless, the scheduled CSV run will try again
+      log.error("Error while writing {} projects CSV after full sync", agreement.getId(), e);
+    } finally {
+      lock.get().unlock();
+    }
+  }
+
+  private static List<ProcurementEventSearch> toSearchDataList(Agreement agreement,
+      List<ProjectExportData> projects, AgreementDetail agreementDetail) {
+    return projects.stream().map(project -> toSearchData(agreement, project, agreementDetail))
+        .filter(Objects::nonNull).toList();
+  }
+
+  private void saveProjectDataAsBatches(List<ProcurementEventSearch> eventSearchDataList,
+      IndexCoordinates index) {
+    for (List<ProcurementEventSearch> batch : TendersAPIModelUtils.getBatches(eventSearchDataList,
+        bathcSize)) {
+      elasticsearchOperations.save(batch, index);
+      log.info("successfully updated events: "+batch.size());
+    }
+  }
+
+  private boolean isLocalPrimary() {
+    return localProjectSearchIndex.map(LocalProjectSearchIndex::isPrimary).orElse(false);
+  }
+
+  /**
+   * The local copy is only a fallback while OpenSearch is in use, so failing to write it doesn't
+   * fail the sync
+   */
+  private void saveToLocalIndex(Agreement agreement, Consumer<LocalProjectSearchIndex> save) {
+    localProjectSearchIndex.ifPresent(local -> {
+      try {
+        save.accept(local);
+      } catch (RuntimeException e) {
+        if (local.isPrimary()) {
+          throw e;
         }
+        log.error("Error while writing {} projects to the local search index", agreement.getId(), e);
       }
-    } catch (Exception e) {
-      // TODO: handle exception
-    }
-    return null;
+    });
   }
-  
-  private void reinstateIndex() {
-    try {
-      searchProjectRepo.deleteAll();
-      log.info("delete data in opensearch");
-    } catch (Exception e) {
+
+  private static ProcurementEventSearch toSearchData(Agreement agreement,
+      ProjectExportData project, AgreementDetail agreementDetail) {
+    // removed broken projects
+    if (!ProjectEnrichmentPipeline.isPublished(project.getFirstRfx())) {
+      return null;
     }
+    var rfxSetting = project.getFirstRfx().getRfxSetting();
+    var status = EventStatusHelper.getEventStatus(rfxSetting);
+    String subStatus = null;
+    if (status.equals(StatusEnum.CLOSED.getValue())) {
+      subStatus = EventStatusHelper.getSubStatus(rfxSetting);
+    }
+    if (Objects.nonNull(project.getLastRfx())) {
+      subStatus = EventStatusHelper.getSubStatus(project.getLastRfx().getRfxSetting());
+    }
+
+    return ProcurementEventSearch.builder().id(String.valueOf(project.getProjectId()))
+        .projectId(project.getProjectId()).projectName(project.getProjectName())
+        .buyerName(project.getOrganisationIdentity().getIdentifier().getLegalName())
+        .location(project.getLocation()).budgetRange(project.getBudgetRange())
+        .agreement(agreementDetail.getName()).agreementId(agreement.getId())
+        .lot(project.getLotNumber())
+        .lotDescription(project.getLotDetail().getDescription()).status(status)
+        .subStatus(subStatus).description(project.getDescription())
+        .lastUpdated(project.getLastUpdated()).build();
   }
-}
 
-@Setter
-@Getter
-@Builder
-class ProcurementEventSearchDTO {
-  String rfxId;
-  String secondRfxId;
-  String id;
-  Integer projectId;
-  String projectName;
-  String buyerName;
-  String location;
-  String budgetRange;
-  String agreement;
-  String lot;
-  String lotDescription;
-  String status;
-  String subStatus;
-  String description;
-  Long lastUpdated;
+  private SearchSyncState getSyncState(Agreement agreement) {
+    var syncName = SYNC_NAME_PREFIX + agreement.getId();
+    return retryableTendersDBDelegate.findSearchSyncState(syncName)
+        .orElseGet(() -> SearchSyncState.builder().name(syncName).build());
+  }
 
+  private void saveSyncState(SearchSyncState syncState) {
+    syncState.setUpdatedAt(Instant.now());
+    retryableTendersDBDelegate.save(syncState);
+  }
 }
@@ -0,0 +1,406 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectFilter;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSearchPage.LotCount;
+
+/**
+ * Embedded Lucene copy of the public opportunities index, kept in a memory-mapped directory on
+ * local disk so it survives restarts. The search sync writes to it alongside OpenSearch on the node
+ * holding the sync lock, {@link LocalProjectSearchIndexRefresher} keeps the copy of every other node
+ * up to date, and public searches fall back to it when OpenSearch can't be reached. With
+ * <code>config.oppertunities.search.local.primary</code> (the <code>local-search</code> profile) it
+ * replaces OpenSearch altogether, for local development without a cluster. Only the sync writes it
+ * then, so the primary mode is for a single node.
+ * <p>
+ * The queries mirror those sent to OpenSearch: same filters, fuzzy keyword match on project name
+ * and description, (lastUpdated, projectId) ordering and lot counts.
+ */
+@Service
+@ConditionalOnExpression("${config.oppertunities.search.local.enabled:false}")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalProjectSearchIndex {
+
+  private static final String ID = "id";
+  private static final String SOURCE = "_source";
+  private static final String AGREEMENT_ID = "agreementId";
+  private static final String PROJECT_ID = "projectId";
+  private static final String PROJECT_NAME = "projectName";
+  private static final String DESCRIPTION = "description";
+  private static final String STATUS = "status";
+  private static final String SUB_STATUS_RAW = "subStatus.raw";
+  private static final String LOT = "lot";
+  private static final String LOT_RAW = "lot.raw";
+  private static final String LOT_DESCRIPTION_RAW = "lotDescription.raw";
+  private static final String LAST_UPDATED = "lastUpdated";
+  /**
+   * Same limits as OpenSearch: at most 100 results per page, and 10000 (max_result_window) through
+   * page numbers. Further results are reached with a cursor.
+   */
+  static final int MAX_PAGE_SIZE = 100;
+  static final int MAX_RESULT_WINDOW = 10_000;
+  private static final Sort SORT = new Sort(new SortField(LAST_UPDATED, SortField.Type.LONG, true),
+      new SortField(PROJECT_ID, SortField.Type.LONG, true));
+
+  private final ObjectMapper objectMapper;
+  private final Analyzer analyzer = new StandardAnalyzer();
+  private Directory directory;
+  private IndexWriter writer;
+  private SearcherManager searcherManager;
+
+  @Value("${config.oppertunities.search.local.path: search-index}")
+  private Path path;
+
+  /**
+   * Serve all public searches from this index and don't use OpenSearch at all
+   */
+  @Getter
+  @Value("${config.oppertunities.search.local.primary: false}")
+  private boolean primary;
+
+  @PostConstruct
+  void open() throws IOException {
+    Files.createDirectories(path);
+    directory = new MMapDirectory(path);
+    writer = new IndexWriter(directory,
+        new IndexWriterConfig(analyzer).setOpenMode(OpenMode.CREATE_OR_APPEND));
+    searcherManager = new SearcherManager(writer, null);
+    log.info("Opened local search index at {} with {} documents", path.toAbsolutePath(),
+        writer.getDocStats().numDocs);
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    IOUtils.close(searcherManager, writer, directory, analyzer);
+  }
+
+  /**
+   * Replaces all of the agreement's documents, readers see either the old or the new set
+   */
+  public void replaceAgreement(final String agreementId,
+      final Collection<ProcurementEventSearch> events) {
+    try {
+      writer.updateDocuments(new Term(AGREEMENT_ID, agreementId),
+          events.stream().map(this::toDocument).toList());
+      commit();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write " + agreementId + " to local search index",
+          e);
+    }
+  }
+
+  /**
+   * Adds or replaces the given documents
+   */
+  public void save(final Collection<ProcurementEventSearch> events) {
+    try {
+      for (ProcurementEventSearch event : events) {
+        writer.updateDocument(new Term(ID, event.getId()), toDocument(event));
+      }
+      commit();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write to local search index", e);
+    }
+  }
+
+  public boolean hasAgreement(final String agreementId) {
+    return withSearcher(
+        searcher -> searcher.count(new TermQuery(new Term(AGREEMENT_ID, agreementId))) > 0);
+  }
+
+  /**
+   * @return ids of the agreement's projects whose sub status is none of the given ones
+   */
+  public Set<Integer> findProjectIdsNotIn(final String agreementId,
+      final Set<String> subStatuses) {
+    var query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term(AGREEMENT_ID, agreementId)), Occur.FILTER);
+    subStatuses.forEach(
+        subStatus -> query.add(new TermQuery(new Term(SUB_STATUS_RAW, subStatus)), Occur.MUST_NOT));
+    return withSearcher(searcher -> {
+      var projectIds = new HashSet<Integer>();
+      var storedFields = searcher.storedFields();
+      var hits = searcher.search(query.build(), Math.max(1, searcher.getIndexReader().maxDoc()));
+      for (var hit : hits.scoreDocs) {
+        var projectId = storedFields.document(hit.doc).getField(PROJECT_ID);
+        if (Objects.nonNull(projectId)) {
+          projectIds.add(projectId.numericValue().intValue());
+        }
+      }
+      return projectIds;
+    });
+  }
+
+  /**
+   * Same results as the OpenSearch query of
+   * {@link uk.gov.crowncommercial.dts.scale.cat.service.ProcurementProjectService#getProjectSummery}
+   *
+   * @param page 1 based, ignored when searching after a cursor
+   * @param pageSize capped at {@value #MAX_PAGE_SIZE}
+   * @param searchAfter sort values of the last hit of the previous page, or null
+   * @throws IllegalArgumentException if the page ends beyond {@value #MAX_RESULT_WINDOW} results
+   */
+  public ProjectSearchPage search(final String agreementId, final String keyword,
+      final String lotId, final ProjectFilter projectFilter, final int page, final int pageSize,
+      final List<Object> searchAfter) {
+    var size = Math.min(Math.max(1, pageSize), MAX_PAGE_SIZE);
+    if (Objects.isNull(searchAfter) && (long) Math.max(1, page) * size > MAX_RESULT_WINDOW) {
+      throw new IllegalArgumentException("Page " + page + " is beyond the first "
+          + MAX_RESULT_WINDOW + " results, use the cursor to page further");
+    }
+    var query = getFilterQuery(agreementId, lotId, projectFilter, keyword);
+    var lotQuery = getFilterQuery(agreementId, null, projectFilter, keyword);
+    return withSearcher(searcher -> {
+      TopDocs top;
+      int from;
+      if (Objects.nonNull(searchAfter)) {
+        // projectId is unique, so the only doc with equal sort values is the cursor's own, which
+        // the highest doc id puts before the page
+        var after = new FieldDoc(searcher.getIndexReader().maxDoc() - 1, Float.NaN,
+            searchAfter.toArray());
+        top = searcher.searchAfter(after, query, size, SORT);
+        from = 0;
+      } else {
+        top = searcher.search(query, Math.max(1, page) * size, SORT);
+        from = (Math.max(1, page) - 1) * size;
+      }
+
+      var storedFields = searcher.storedFields();
+      var hits = new ArrayList<ProcurementEventSearch>();
+      List<Object> lastSortValues = null;
+      for (int i = from; i < top.scoreDocs.length; i++) {
+        var hit = (FieldDoc) top.scoreDocs[i];
+        hits.add(objectMapper.readValue(
+            storedFields.document(hit.doc).getBinaryValue(SOURCE).bytes,
+            ProcurementEventSearch.class));
+        lastSortValues = List.of(hit.fields);
+      }
+
+      var lots = new LotCollector();
+      searcher.search(lotQuery, lots);
+      return new ProjectSearchPage(hits, searcher.count(query), lastSortValues, lots.getLots());
+    });
+  }
+
+  private Query getFilterQuery(final String agreementId, final String lotId,
+      final ProjectFilter projectFilter, final String keyword) {
+    var query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term(AGREEMENT_ID, agreementId)), Occur.FILTER);
+    if (Objects.nonNull(projectFilter) && STATUS.equalsIgnoreCase(projectFilter.getName())) {
+      var statuses = new BooleanQuery.Builder();
+      projectFilter.getOptions().stream().filter(option -> Boolean.TRUE.equals(option.getSelected()))
+          .forEach(option -> statuses.add(new TermQuery(new Term(STATUS, option.getText())),
+              Occur.SHOULD));
+      var statusQuery = statuses.build();
+      // an empty bool matches everything in OpenSearch but nothing in Lucene
+      if (!statusQuery.clauses().isEmpty()) {
+        query.add(statusQuery, Occur.FILTER);
+      }
+    }
+    if (Objects.nonNull(lotId)) {
+      query.add(new TermQuery(new Term(LOT, lotId)), Occur.MUST);
+    }
+    if (Objects.nonNull(keyword)) {
+      query.add(getKeywordQuery(keyword), Occur.MUST);
+    }
+    return query.build();
+  }
+
+  /**
+   * The equivalent of a best_fields multi_match with fuzziness 1
+   */
+  private Query getKeywordQuery(final String keyword) {
+    var fieldQueries = new ArrayList<Query>();
+    for (String field : List.of(PROJECT_NAME, DESCRIPTION)) {
+      var fieldQuery = new BooleanQuery.Builder();
+      analyze(field, keyword).forEach(
+          token -> fieldQuery.add(new FuzzyQuery(new Term(field, token), 1), Occur.SHOULD));
+      fieldQueries.add(fieldQuery.build());
+    }
+    return new DisjunctionMaxQuery(fieldQueries, 0f);
+  }
+
+  private List<String> analyze(final String field, final String text) {
+    var tokens = new ArrayList<String>();
+    try (var stream = analyzer.tokenStream(field, text)) {
+      var term = stream.addAttribute(CharTermAttribute.class);
+      stream.reset();
+      while (stream.incrementToken()) {
+        tokens.add(term.toString());
+      }
+      stream.end();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to analyze " + text, e);
+    }
+    return tokens;
+  }
+
+  private Document toDocument(final ProcurementEventSearch event) {
+    var document = new Document();
+    document.add(new StringField(ID, event.getId(), Store.NO));
+    addString(document, AGREEMENT_ID, event.getAgreementId());
+    addString(document, SUB_STATUS_RAW, event.getSubStatus());
+    addText(document, PROJECT_NAME, event.getProjectName());
+    addText(document, DESCRIPTION, event.getDescription());
+    addText(document, STATUS, event.getStatus());
+    addText(document, LOT, event.getLot());
+    addSorted(document, LOT_RAW, event.getLot());
+    addSorted(document, LOT_DESCRIPTION_RAW, event.getLotDescription());
+    document.add(new NumericDocValuesField(LAST_UPDATED,
+        Objects.requireNonNullElse(event.getLastUpdated(), 0L)));
+    if (Objects.nonNull(event.getProjectId())) {
+      document.add(new NumericDocValuesField(PROJECT_ID, event.getProjectId()));
+      document.add(new StoredField(PROJECT_ID, event.getProjectId()));
+    }
+    try {
+      document.add(new StoredField(SOURCE, objectMapper.writeValueAsBytes(event)));
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to serialise project " + event.getId(), e);
+    }
+    return document;
+  }
+
+  private static void addString(final Document document, final String field,
+      final String value) {
+    if (Objects.nonNull(value)) {
+      document.add(new StringField(field, value, Store.NO));
+    }
+  }
+
+  private static void addText(final Document document, final String field, final String value) {
+    if (Objects.nonNull(value)) {
+      document.add(new TextField(field, value, Store.NO));
+    }
+  }
+
+  private static void addSorted(final Document document, final String field,
+      final String value) {
+    if (Objects.nonNull(value)) {
+      document.add(new SortedDocValuesField(field, new BytesRef(value)));
+    }
+  }
+
+  private void commit() throws IOException {
+    writer.commit();
+    searcherManager.maybeRefreshBlocking();
+  }
+
+  private <T> T withSearcher(final SearcherFunction<T> function) {
+    try {
+      var searcher = searcherManager.acquire();
+      try {
+        return function.apply(searcher);
+      } finally {
+        searcherManager.release(searcher);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to search local search index", e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface SearcherFunction<T> {
+    T apply(IndexSearcher searcher) throws IOException;
+  }
+
+  /**
+   * Counts the matching documents per lot, like the terms aggregation on lot.raw, keeping the
+   * first lot description seen
+   */
+  private static class LotCollector extends SimpleCollector {
+
+    private final Map<String, long[]> counts = new HashMap<>();
+    private final Map<String, String> descriptions = new HashMap<>();
+    private SortedDocValues lots;
+    private SortedDocValues lotDescriptions;
+
+    @Override
+    protected void doSetNextReader(final LeafReaderContext context) throws IOException {
+      lots = DocValues.getSorted(context.reader(), LOT_RAW);
+      lotDescriptions = DocValues.getSorted(context.reader(), LOT_DESCRIPTION_RAW);
+    }
+
+    @Override
+    public void collect(final int doc) throws IOException {
+      if (!lots.advanceExact(doc)) {
+        return;
+      }
+      var lot = lots.lookupOrd(lots.ordValue()).utf8ToString();
+      counts.computeIfAbsent(lot, key -> new long[1])[0]++;
+      if (!descriptions.containsKey(lot) && lotDescriptions.advanceExact(doc)) {
+        descriptions.put(lot, lotDescriptions.lookupOrd(lotDescriptions.ordValue()).utf8ToString());
+      }
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    List<LotCount> getLots() {
+      return counts.entrySet().stream()
+          .map(entry -> new LotCount(entry.getKey(), entry.getValue()[0],
+              descriptions.get(entry.getKey())))
+          .sorted(Comparator.comparingLong(LotCount::getCount).reversed()
+              .thenComparing(LotCount::getLot))
+          .toList();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
+
+/**
+ * Copies each agreement's OpenSearch index into this node's {@link LocalProjectSearchIndex}. The
+ * search sync only writes the local index of the node holding its lock, so every node refreshes its
+ * own copy shortly after startup and then on its own schedule, without a lock. Does nothing when
+ * the local index is primary, as there is no OpenSearch to copy from.
+ */
+@Component
+@ConditionalOnExpression("${config.oppertunities.search.local.enabled:false}")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalProjectSearchIndexRefresher {
+
+  private final LocalProjectSearchIndex localProjectSearchIndex;
+  private final ProjectSearchIndexService projectSearchIndexService;
+  private final ElasticsearchOperations elasticsearchOperations;
+  private final OpportunityExportConfig opportunityExportConfig;
+
+  @Scheduled(
+      initialDelayString = "${config.oppertunities.search.local.refresh.initial-delay: PT30S}",
+      fixedDelayString = "${config.oppertunities.search.local.refresh.interval: PT15M}")
+  public void refresh() {
+    if (localProjectSearchIndex.isPrimary()) {
+      return;
+    }
+    for (var agreement : opportunityExportConfig.getAgreements()) {
+      try {
+        refresh(agreement.getId());
+      } catch (RuntimeException e) {
+        // the copy is only a fallback, it is left as is until the next refresh
+        log.warn("Unable to refresh the local search index of {}: {}", agreement.getId(),
+            e.getMessage());
+      }
+    }
+  }
+
+  private void refresh(final String agreementId) {
+    if (!projectSearchIndexService.hasAgreementIndex(agreementId)) {
+      return;
+    }
+    try (var hits = elasticsearchOperations.searchForStream(Query.findAll(),
+        ProcurementEventSearch.class, ProjectSearchIndexService.getAgreementAlias(agreementId))) {
+      var events = hits.stream().map(SearchHit::getContent).toList();
+      localProjectSearchIndex.replaceAgreement(agreementId, events);
+      log.info("Refreshed the local search index of {} with {} projects", agreementId,
+          events.size());
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.opensearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.common.settings.Settings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
+
+/**
+ * Manages the versioned indexes behind the {@link ProcurementEventSearch} aliases. Every agreement
+ * has its own <code>procurement_event_{agreement}_vN</code> index and write alias, and the read
+ * alias spans all of them. A full rebuild of an agreement writes into a fresh index with bulk
+ * friendly settings and only becomes visible to search once the aliases are swapped over to it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectSearchIndexService {
+
+  public static final String ALIAS = "procurement_event";
+  public static final IndexCoordinates ALIAS_COORDINATES = IndexCoordinates.of(ALIAS);
+
+  /**
+   * Single index built before indexes were split by agreement
+   */
+  private static final Pattern LEGACY_INDEX = Pattern.compile(ALIAS + "(_v\\d+)?");
+  private static final String MAPPING_FILE = "mappingfile/projectSummaryMapping.json";
+  private static final String REFRESH_INTERVAL = "index.refresh_interval";
+  private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+  private final ElasticsearchOperations elasticsearchOperations;
+  private final RestHighLevelClient opensearchClient;
+
+  @Value("${config.oppertunities.opensearch.replicas: 1}")
+  private int replicas;
+
+  /**
+   * @param agreementId the agreement
+   * @return the write alias of the agreement's current index
+   */
+  public static IndexCoordinates getAgreementAlias(final String agreementId) {
+    return IndexCoordinates.of(getAgreementAliasName(agreementId));
+  }
+
+  /**
+   * @param agreementId the agreement
+   * @return true once a rebuild of the agreement has been published
+   */
+  public boolean hasAgreementIndex(final String agreementId) {
+    return elasticsearchOperations.indexOps(getAgreementAlias(agreementId)).exists();
+  }
+
+  /**
+   * Creates an empty versioned index with refresh and replication switched off for bulk loading
+   *
+   * @param agreementId the agreement the index is built for
+   * @return the coordinates of the new index
+   */
+  @SuppressWarnings("unchecked")
+  public IndexCoordinates createVersionedIndex(final String agreementId) {
+    var index = IndexCoordinates
+        .of(getVersionPrefix(agreementId) + Instant.now().toEpochMilli());
+    var definition = getIndexDefinition();
+    var settings = new HashMap<String, Object>((Map<String, Object>) definition.get("settings"));
+    settings.put(REFRESH_INTERVAL, "-1");
+    settings.put(NUMBER_OF_REPLICAS, 0);
+    elasticsearchOperations.indexOps(index).create(settings,
+        Document.from((Map<String, Object>) definition.get("mappings")));
+    log.info("Created opensearch index {}", index.getIndexName());
+    return index;
+  }
+
+  /**
+   * Restores the normal settings on a fully loaded index and, in a single atomic request, points
+   * the read and agreement aliases at it and drops the agreement's previous index. Orphans of
+   * failed rebuilds are deleted afterwards.
+   *
+   * @param agreementId the agreement the index was built for
+   * @param index the index built by {@link #createVersionedIndex(String)}
+   */
+  public void publish(final String agreementId, final IndexCoordinates index) {
+    var indexName = index.getIndexName();
+    var agreementAlias = getAgreementAliasName(agreementId);
+    updateSettings(indexName, Settings.builder().putNull(REFRESH_INTERVAL)
+        .put(NUMBER_OF_REPLICAS, replicas).build());
+    elasticsearchOperations.indexOps(index).refresh();
+
+    var aliasOps = elasticsearchOperations.indexOps(ALIAS_COORDINATES);
+    var readIndexes = aliasOps.getAliases(ALIAS).keySet();
+    var previousIndexes = new HashSet<>(aliasOps.getAliases(agreementAlias).keySet());
+    // the index built before the split by agreement is replaced by the first rebuild
+    readIndexes.stream().filter(name -> LEGACY_INDEX.matcher(name).matches())
+        .forEach(previousIndexes::add);
+    if (readIndexes.isEmpty() && aliasOps.exists()) {
+      // an index created before aliases were used still holds the alias name
+      previousIndexes.add(ALIAS);
+    }
+
+    var actions = new ArrayList<AliasAction>();
+    actions.add(new AliasAction.Add(AliasActionParameters.builder().withIndices(indexName)
+        .withAliases(ALIAS, agreementAlias).build()));
+    previousIndexes.forEach(previous -> actions.add(new AliasAction.RemoveIndex(
+        AliasActionParameters.builder().withIndices(previous).build())));
+    aliasOps.alias(new AliasActions(actions.toArray(AliasAction[]::new)));
+    log.info("Opensearch aliases {} and {} now point to {}, removed {}", ALIAS, agreementAlias,
+        indexName, previousIndexes);
+
+    deleteVersionedIndexesExcept(getVersionPrefix(agreementId), indexName);
+  }
+
+  /**
+   * Drops an index that was not published, e.g. after a failed rebuild
+   *
+   * @param index the index to delete
+   */
+  public void discard(final IndexCoordinates index) {
+    try {
+      elasticsearchOperations.indexOps(index).delete();
+    } catch (Exception e) {
+      log.error("Unable to delete opensearch index {}", index.getIndexName(), e);
+    }
+  }
+
+  private void deleteVersionedIndexesExcept(final String versionPrefix, final String keep) {
+    var versioned = elasticsearchOperations.indexOps(IndexCoordinates.of(versionPrefix + "*"))
+        .getInformation().stream().map(IndexInformation::getName)
+        .filter(name -> !name.equals(keep)).toList();
+    versioned.forEach(name -> discard(IndexCoordinates.of(name)));
+    if (!versioned.isEmpty()) {
+      log.info("Deleted orphaned opensearch indexes {}", versioned);
+    }
+  }
+
+  private static String getAgreementAliasName(final String agreementId) {
+    return ALIAS + "_" + agreementId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "-");
+  }
+
+  private static String getVersionPrefix(final String agreementId) {
+    return getAgreementAliasName(agreementId) + "_v";
+  }
+
+  private void updateSettings(final String indexName, final Settings settings) {
+    try {
+      opensearchClient.indices().putSettings(new UpdateSettingsRequest(indexName).settings(settings),
+          RequestOptions.DEFAULT);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to update settings of opensearch index " + indexName,
+          e);
+    }
+  }
+
+  /**
+   * Index settings (the suggest analyzers) and mappings
+   */
+  private static Document getIndexDefinition() {
+    try {
+      return Document
+          .parse(new ClassPathResource(MAPPING_FILE).getContentAsString(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read opensearch mapping " + MAPPING_FILE, e);
+    }
+  }
+}
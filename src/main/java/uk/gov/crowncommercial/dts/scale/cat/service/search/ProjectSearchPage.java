@@ -0,0 +1,30 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.search;
+
+import java.util.List;
+import lombok.Value;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
+
+/**
+ * A page of public project search results with its lot facets, whichever engine (OpenSearch or
+ * the local index) answered it
+ */
+@Value
+public class ProjectSearchPage {
+
+  List<ProcurementEventSearch> hits;
+  long totalHits;
+
+  /**
+   * Sort values (lastUpdated, projectId) of the last hit, null when there are no hits
+   */
+  List<Object> lastSortValues;
+
+  List<LotCount> lots;
+
+  @Value
+  public static class LotCount {
+    String lot;
+    long count;
+    String lotDescription;
+  }
+}
@@ -0,0 +1,87 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.search;
+
+import static org.opensearch.index.query.QueryBuilders.boolQuery;
+import static org.opensearch.index.query.QueryBuilders.matchQuery;
+import static org.opensearch.index.query.QueryBuilders.termQuery;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import org.opensearch.data.client.orhlc.NativeSearchQuery;
+import org.opensearch.data.client.orhlc.NativeSearchQueryBuilder;
+import org.opensearch.index.query.Operator;
+import org.opensearch.search.collapse.CollapseBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.stereotype.Service;
+import lombok.RequiredArgsConstructor;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProjectSuggestions;
+
+/**
+ * Type-ahead suggestions for the public project search. Each field is matched on its edge n-gram
+ * <code>suggest</code> subfield and collapsed on its keyword, so a suggestion is a cheap term
+ * lookup returning a handful of small hits rather than a full search page with lot facets.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProjectSuggestionService {
+
+  static final int MIN_PREFIX_LENGTH = 2;
+  private static final String PROJECT_NAME = "projectName";
+  private static final String BUYER_NAME = "buyerName";
+  private static final String LOCATION = "location";
+
+  private final ElasticsearchOperations elasticsearchOperations;
+
+  @Value("${config.oppertunities.search.suggest.size: 5}")
+  private int size;
+
+  /**
+   * Suggestions only change when the opportunities are synced to OpenSearch, which evicts this
+   * cache. Prefixes are cached case-insensitively as the analyzers lowercase them anyway.
+   *
+   * @param agreementId the agreement searched
+   * @param prefix what the user has typed so far
+   * @return up to the configured number of suggestions per field, none for prefixes too short to
+   *         be useful
+   */
+  @Cacheable(value = "getProjectSuggestions",
+      key = "{#agreementId, #prefix?.trim()?.toLowerCase()}")
+  public ProjectSuggestions getProjectSuggestions(final String agreementId, final String prefix) {
+    var trimmed = Objects.isNull(prefix) ? "" : prefix.trim();
+    if (trimmed.length() < MIN_PREFIX_LENGTH) {
+      return new ProjectSuggestions(trimmed, List.of(), List.of(), List.of());
+    }
+
+    // all three fields in one round trip
+    var results = elasticsearchOperations.multiSearch(
+        List.of(getSuggestQuery(agreementId, PROJECT_NAME, trimmed),
+            getSuggestQuery(agreementId, BUYER_NAME, trimmed),
+            getSuggestQuery(agreementId, LOCATION, trimmed)),
+        ProcurementEventSearch.class, ProjectSearchIndexService.ALIAS_COORDINATES);
+    return new ProjectSuggestions(trimmed,
+        getValues(results.get(0), ProcurementEventSearch::getProjectName),
+        getValues(results.get(1), ProcurementEventSearch::getBuyerName),
+        getValues(results.get(2), ProcurementEventSearch::getLocation));
+  }
+
+  private NativeSearchQuery getSuggestQuery(final String agreementId, final String field,
+      final String prefix) {
+    return new NativeSearchQueryBuilder()
+        .withQuery(boolQuery().filter(termQuery("agreementId", agreementId))
+            .must(matchQuery(field + ".suggest", prefix).operator(Operator.AND)))
+        .withCollapseBuilder(new CollapseBuilder(field + ".raw"))
+        .withSourceFilter(new FetchSourceFilter(new String[] {field}, null))
+        .withMaxResults(size).build();
+  }
+
+  private static List<String> getValues(final SearchHits<ProcurementEventSearch> hits,
+      final Function<ProcurementEventSearch, String> field) {
+    return hits.getSearchHits().stream().map(SearchHit::getContent).map(field)
+        .filter(Objects::nonNull).distinct().toList();
+  }
+}
@@ -0,0 +1,142 @@
+package uk.gov.crowncommercial.dts.scale.cat.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link OutputStream} which uploads to S3 while it is being written, one multipart upload part at a
+ * time, so at most one part is held in memory. Closing the stream completes the upload (content
+ * smaller than a single part is sent as a plain put instead). If writing fails, {@link #abort()}
+ * discards the parts already uploaded and leaves any existing object untouched.
+ */
+@Slf4j
+public class S3MultipartOutputStream extends OutputStream {
+
+  /**
+   * Smallest part S3 accepts for all but the last part of a multipart upload
+   */
+  public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+  private final AmazonS3 s3Client;
+  private final String bucketName;
+  private final String key;
+  private final ObjectMetadata objectMetadata;
+  private final byte[] buffer;
+  private final List<PartETag> partETags = new ArrayList<>();
+  private int position;
+  private String uploadId;
+  private boolean closed;
+
+  public S3MultipartOutputStream(final AmazonS3 s3Client, final String bucketName,
+      final String key, final ObjectMetadata objectMetadata, final int partSize) {
+    if (partSize < MIN_PART_SIZE) {
+      throw new IllegalArgumentException("partSize must be at least " + MIN_PART_SIZE + " bytes");
+    }
+    this.s3Client = s3Client;
+    this.bucketName = bucketName;
+    this.key = key;
+    this.objectMetadata = objectMetadata;
+    this.buffer = new byte[partSize];
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    ensureOpen();
+    if (position == buffer.length) {
+      uploadPart();
+    }
+    buffer[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+    ensureOpen();
+    int written = 0;
+    while (written < length) {
+      if (position == buffer.length) {
+        uploadPart();
+      }
+      int chunk = Math.min(length - written, buffer.length - position);
+      System.arraycopy(bytes, offset + written, buffer, position, chunk);
+      position += chunk;
+      written += chunk;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      if (uploadId == null) {
+        objectMetadata.setContentLength(position);
+        s3Client.putObject(new PutObjectRequest(bucketName, key,
+            new ByteArrayInputStream(buffer, 0, position), objectMetadata));
+      } else {
+        if (position > 0) {
+          uploadPart();
+        }
+        s3Client.completeMultipartUpload(
+            new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+      }
+      closed = true;
+    } catch (RuntimeException e) {
+      abort();
+      throw new IOException("Failed to complete upload of " + key, e);
+    }
+  }
+
+  /**
+   * Abandons the upload. Safe to call more than once and after {@link #close()} failed.
+   */
+  public void abort() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (uploadId != null) {
+      try {
+        s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+      } catch (RuntimeException e) {
+        log.error("Failed to abort multipart upload {} of {}", uploadId, key, e);
+      }
+    }
+  }
+
+  private void uploadPart() throws IOException {
+    try {
+      if (uploadId == null) {
+        uploadId = s3Client
+            .initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, key, objectMetadata))
+            .getUploadId();
+      }
+      var partRequest = new UploadPartRequest().withBucketName(bucketName).withKey(key)
+          .withUploadId(uploadId).withPartNumber(partETags.size() + 1)
+          .withInputStream(new ByteArrayInputStream(buffer, 0, position)).withPartSize(position);
+      partETags.add(s3Client.uploadPart(partRequest).getPartETag());
+      position = 0;
+    } catch (RuntimeException e) {
+      throw new IOException("Failed to upload part " + (partETags.size() + 1) + " of " + key, e);
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Upload of " + key + " is already closed");
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package uk.gov.crowncommercial.dts.scale.cat.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+/**
+ * Binds the export agreements from the real application.yml
+ */
+@SpringBootTest(classes = OpportunityExportConfig.class, webEnvironment = WebEnvironment.NONE)
+@EnableConfigurationProperties
+class OpportunityExportConfigTest {
+
+  @Autowired
+  private OpportunityExportConfig opportunityExportConfig;
+
+  @Test
+  void testAgreementsAreBound() {
+    assertEquals(4, opportunityExportConfig.getParallelism());
+    assertEquals(1, opportunityExportConfig.getAgreements().size());
+
+    var agreement = opportunityExportConfig.getAgreement("RM1043.8");
+    assertTrue(agreement.isPresent());
+    assertEquals(80, agreement.get().getPublishedBatchSize());
+    assertEquals(20, agreement.get().getAwardedBatchSize());
+    assertEquals("/Oppertunity/opportunity_data.csv", agreement.get().getCsvKey());
+  }
+}
@@ -4,7 +4,12 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,7 +23,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -34,6 +46,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.javacrumbs.shedlock.core.LockProvider;
 import uk.gov.crowncommercial.dts.scale.cat.config.ApplicationFlagsConfig;
@@ -41,14 +54,18 @@ import uk.gov.crowncommercial.dts.scale.cat.config.Constants;
 import uk.gov.crowncommercial.dts.scale.cat.config.JaggaerAPIConfig;
 import uk.gov.crowncommercial.dts.scale.cat.config.OAuth2Config;
 import uk.gov.crowncommercial.dts.scale.cat.exception.JaggaerApplicationException;
+import uk.gov.crowncommercial.dts.scale.cat.exception.TooManyRequestsException;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.AgreementDetails;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProcurementProjectName;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.UpdateTeamMember;
 import uk.gov.crowncommercial.dts.scale.cat.model.generated.UpdateTeamMemberType;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProjectSuggestions;
 import uk.gov.crowncommercial.dts.scale.cat.service.ProcurementProjectService;
 import uk.gov.crowncommercial.dts.scale.cat.service.UserProfileService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsExportService;
 import uk.gov.crowncommercial.dts.scale.cat.service.ocds.ProjectPackageService;
 import uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask;
+import uk.gov.crowncommercial.dts.scale.cat.service.search.ProjectSuggestionService;
 import uk.gov.crowncommercial.dts.scale.cat.util.TestUtils;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
@@ -98,6 +115,12 @@ class ProjectsControllerTest {
   @MockBean
   private UserProfileService userProfileService;
 
+  @MockBean
+  private ProjectSuggestionService projectSuggestionService;
+
+  @MockBean
+  private OcdsExportService ocdsExportService;
+
   private JwtRequestPostProcessor validJwtReqPostProcessor;
 
   @BeforeEach
@@ -151,6 +174,164 @@ class ProjectsControllerTest {
         new AgreementDetails().agreementId(CA_NUMBER).lotId(input));
   }
 
+  @Test
+  void getProjectSuggestions_200_OK_Public() throws Exception {
+    when(projectSuggestionService.getProjectSuggestions(CA_NUMBER, "dig")).thenReturn(
+        new ProjectSuggestions("dig", List.of("Digital services"), List.of(), List.of()));
+
+    mockMvc
+        .perform(get(TENDERS_PROJECTS + "suggest").param("agreement-id", CA_NUMBER)
+            .param("prefix", "dig"))
+        .andDo(print()).andExpect(status().isOk())
+        .andExpect(content().contentType(APPLICATION_JSON))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+        .andExpect(jsonPath("$.prefix").value("dig"))
+        .andExpect(jsonPath("$.projectNames[0]").value("Digital services"))
+        .andExpect(jsonPath("$.buyerNames", hasSize(0)));
+  }
+
+  @Test
+  void exportProjects_200_OK() throws Exception {
+    doAnswer(invocation -> {
+      OutputStream out = invocation.getArgument(6);
+      out.write("{\"uri\":\"a\"}\n{\"uri\":\"b\"}\n".getBytes(StandardCharsets.UTF_8));
+      return 2;
+    }).when(ocdsExportService).export(eq(CA_NUMBER), eq(Instant.parse("2023-01-01T00:00:00Z")),
+        isNull(), eq("active"), any(), eq(PRINCIPAL), any(OutputStream.class));
+
+    mockMvc
+        .perform(get(TENDERS_PROJECTS + "export").with(validJwtReqPostProcessor)
+            .param("agreement-id", CA_NUMBER).param("published-from", "2023-01-01T00:00:00Z")
+            .param("status", "active"))
+        .andDo(print()).andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"ocds-" + CA_NUMBER + ".ndjson\""))
+        .andExpect(content().string("{\"uri\":\"a\"}\n{\"uri\":\"b\"}\n"));
+  }
+
+  @Test
+  void exportProjects_401_Unauthorised() throws Exception {
+    mockMvc.perform(get(TENDERS_PROJECTS + "export").param("agreement-id", CA_NUMBER))
+        .andDo(print()).andExpect(status().isUnauthorized());
+
+    verify(ocdsExportService, times(0)).reserveExport();
+  }
+
+  @Test
+  void exportProjects_429_Too_Many_Requests() throws Exception {
+    when(ocdsExportService.reserveExport())
+        .thenThrow(new TooManyRequestsException("Too many exports"));
+
+    mockMvc
+        .perform(get(TENDERS_PROJECTS + "export").with(validJwtReqPostProcessor)
+            .param("agreement-id", CA_NUMBER))
+        .andDo(print()).andExpect(status().isTooManyRequests())
+        .andExpect(content().contentType(APPLICATION_JSON))
+        .andExpect(jsonPath("$.errors[0].status", is("429 TOO_MANY_REQUESTS")));
+
+    verify(ocdsExportService, times(0)).export(any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void downloadFile_304_NotModified() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null)).thenReturn(csvMetadata("abc", null));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+        .andDo(print()).andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""));
+    verify(procurementProjectService, never()).downloadProjectsData(any(), any(), any(), any(),
+        anyBoolean());
+  }
+
+  @Test
+  void downloadFile_206_PartialContent() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null)).thenReturn(csvMetadata("abc", null));
+    when(procurementProjectService.downloadProjectsData(null, "abc", 2L, 5L, false))
+        .thenReturn(csvContent("2345"));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.RANGE, "bytes=2-5")
+        .header(HttpHeaders.IF_RANGE, "\"abc\"")).andDo(print())
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+        .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+        .andExpect(content().string("2345"));
+  }
+
+  @Test
+  void downloadFile_416_RangeNotSatisfiable() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null)).thenReturn(csvMetadata("abc", null));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.RANGE, "bytes=20-30"))
+        .andDo(print()).andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+  }
+
+  @Test
+  void downloadFile_200_Stale_IfRange() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null)).thenReturn(csvMetadata("abc", null));
+    when(procurementProjectService.downloadProjectsData(null, "abc", null, null, false))
+        .thenReturn(csvContent("0123456789"));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.RANGE, "bytes=2-5")
+        .header(HttpHeaders.IF_RANGE, "\"old\"")).andDo(print()).andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+        .andExpect(content().string("0123456789"));
+  }
+
+  @Test
+  void downloadFile_200_Gzip_PassedThrough() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null)).thenReturn(csvMetadata("abc", "gzip"));
+    when(procurementProjectService.downloadProjectsData(null, "abc", null, null, false))
+        .thenReturn(csvContent("gzipped"));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+        .andDo(print()).andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+        .andExpect(content().string("gzipped"));
+  }
+
+  @Test
+  void downloadFile_200_Gzip_Inflated() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null)).thenReturn(csvMetadata("abc", "gzip"));
+    when(procurementProjectService.downloadProjectsData(null, "abc", null, null, true))
+        .thenReturn(csvContent("0123456789"));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.RANGE, "bytes=2-5"))
+        .andDo(print()).andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "none"))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"abc-identity\""))
+        .andExpect(content().string("0123456789"));
+  }
+
+  @Test
+  void downloadFile_ReplacedDuringDownload() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null))
+        .thenReturn(csvMetadata("abc", null), csvMetadata("def", null));
+    when(procurementProjectService.downloadProjectsData(null, "def", null, null, false))
+        .thenReturn(csvContent("9876543210"));
+
+    // the range was of the replaced file
+    mockMvc.perform(get(TENDERS_PROJECTS + "download").header(HttpHeaders.RANGE, "bytes=2-5")
+        .header(HttpHeaders.IF_RANGE, "\"abc\"")).andDo(print()).andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"def\""))
+        .andExpect(content().string("9876543210"));
+  }
+
+  @Test
+  void downloadFile_412_ReplacedTwice() throws Exception {
+    when(procurementProjectService.getProjectsDataMetadata(null))
+        .thenReturn(csvMetadata("abc", null), csvMetadata("def", null));
+
+    mockMvc.perform(get(TENDERS_PROJECTS + "download")).andDo(print())
+        .andExpect(status().isPreconditionFailed());
+    verify(procurementProjectService, times(2)).downloadProjectsData(any(), any(), any(), any(),
+        anyBoolean());
+  }
+
   @Test
   void createProcurementProject_403_Forbidden() throws Exception {
     var invalidJwtReqPostProcessor =
@@ -391,4 +572,16 @@ class ProjectsControllerTest {
         .andExpect(jsonPath("$.errors[0].title", is("Validation error processing the request")));
   }
 
+  private static ObjectMetadata csvMetadata(final String eTag, final String contentEncoding) {
+    var metadata = new ObjectMetadata();
+    metadata.setHeader(HttpHeaders.ETAG, eTag);
+    metadata.setLastModified(Date.from(Instant.parse("2023-01-01T00:00:00Z")));
+    metadata.setContentLength(10);
+    metadata.setContentEncoding(contentEncoding);
+    return metadata;
+  }
+
+  private static InputStream csvContent(final String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
 }
@@ -0,0 +1,40 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+class RetryBackoffTest {
+
+  private final RetryBackoff backoff =
+      new RetryBackoff(Duration.ofSeconds(10), 2, Duration.ofSeconds(60));
+
+  @RepeatedTest(20)
+  void testDelayGrowsExponentiallyWithJitter() {
+    assertBetween(5_000, 10_000, backoff.getDelay(1));
+    assertBetween(10_000, 20_000, backoff.getDelay(2));
+    assertBetween(20_000, 40_000, backoff.getDelay(3));
+  }
+
+  @RepeatedTest(20)
+  void testDelayIsCapped() {
+    assertBetween(30_000, 60_000, backoff.getDelay(4));
+    assertBetween(30_000, 60_000, backoff.getDelay(50));
+  }
+
+  @Test
+  void testInvalidBackoff() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RetryBackoff(Duration.ofSeconds(10), 0.5, Duration.ofSeconds(60)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new RetryBackoff(Duration.ofSeconds(10), 2, Duration.ofSeconds(5)));
+  }
+
+  private static void assertBetween(long min, long max, Duration delay) {
+    assertTrue(delay.toMillis() >= min && delay.toMillis() <= max,
+        "Delay " + delay.toMillis() + " not in [" + min + ", " + max + "]");
+  }
+}
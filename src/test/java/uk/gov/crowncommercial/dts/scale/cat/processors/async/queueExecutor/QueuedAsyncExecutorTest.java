@@ -0,0 +1,101 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.crowncommercial.dts.scale.cat.config.ApplicationFlagsConfig;
+import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec.TaskPayloadCodecs;
+
+class QueuedAsyncExecutorTest {
+
+  private final ThreadPoolTaskExecutor taskExecutor = mock(ThreadPoolTaskExecutor.class);
+  private final ApplicationContext ctx = mock(ApplicationContext.class);
+  private final TaskEntityService taskEntityService = mock(TaskEntityService.class);
+  private final TaskPayloadCodecs payloadCodecs = mock(TaskPayloadCodecs.class);
+  private final QueuedAsyncExecutor asyncExecutor = new QueuedAsyncExecutor(taskExecutor, ctx,
+      mock(ApplicationFlagsConfig.class), new ExperimentalFlagsConfig(), taskEntityService,
+      new InFlightTaskRegistry(), payloadCodecs);
+
+  @BeforeEach
+  void setUp() {
+    when(ctx.getBean(TestConsumer.class)).thenReturn(new TestConsumer());
+    when(payloadCodecs.encode("data")).thenReturn("data");
+    when(taskEntityService.persist(eq("user"), any(Task.class), eq("Test"), eq("1"), anyString()))
+        .thenAnswer(invocation -> {
+          invocation.<Task>getArgument(1).setId(7L);
+          return true;
+        });
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  void testTaskIsDispatchedOnlyAfterCommit() {
+    asyncExecutor.submit("user", TestConsumer.class, "data", "Test", "1");
+
+    verify(taskExecutor, never()).execute(any(Runnable.class));
+    synchronizations().forEach(TransactionSynchronization::afterCommit);
+    synchronizations().forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+    verify(taskExecutor).execute(any(RunnableTask.class));
+    verify(taskEntityService, never()).markAborted(any(Task.class), anyString());
+  }
+
+  @Test
+  void testTaskIsAbortedOnRollback() {
+    asyncExecutor.submit("user", TestConsumer.class, "data", "Test", "1");
+
+    synchronizations()
+        .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+    verify(taskExecutor, never()).execute(any(Runnable.class));
+    verify(taskEntityService).markAborted(any(Task.class),
+        eq("Aborted. Submitting transaction rolled back"));
+  }
+
+  private static List<TransactionSynchronization> synchronizations() {
+    var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(1, synchronizations.size());
+    return synchronizations;
+  }
+
+  @Component("TestConsumer")
+  static class TestConsumer implements AsyncConsumer<String> {
+
+    @Override
+    public String accept(String principal, String data) {
+      return "OK";
+    }
+
+    @Override
+    public String getIdentifier(String data) {
+      return data;
+    }
+
+    @Override
+    public String getTaskName() {
+      return "Test";
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import uk.gov.crowncommercial.dts.scale.cat.config.EnvironmentConfig;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.Timestamps;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskHistoryEntity;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskHistoryRepo;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+class TaskEntityServiceTest {
+
+  private static final String RUNNER = "JaggaerSupplierPush";
+  private static final String NAME = "ProcurementEvent1" + RUNNER;
+
+  private final TaskRepo taskRepo = mock(TaskRepo.class);
+  private final TaskEntityService service = new TaskEntityService(taskRepo,
+      mock(TaskHistoryRepo.class), mock(EnvironmentConfig.class));
+
+  @Test
+  void testResubmittedPendingTaskTakesNewData() {
+    var entity = entity(Task.SCHEDULED, "old");
+    when(taskRepo.findByNameOrderByIdDesc(NAME)).thenReturn(List.of(entity));
+
+    var task = task();
+    assertFalse(service.persist("user", task, "ProcurementEvent", "1", "new"));
+
+    assertEquals("new", entity.getData());
+    assertEquals(Task.SCHEDULED, entity.getStatus());
+    assertEquals(entity.getId(), task.getId());
+  }
+
+  @Test
+  void testResubmittedRunningTaskRunsAgainWithNewData() {
+    var entity = entity(Task.INFLIGHT, "old");
+    when(taskRepo.findByNameOrderByIdDesc(NAME)).thenReturn(List.of(entity));
+    when(taskRepo.findForUpdateById(entity.getId())).thenReturn(Optional.of(entity));
+
+    var task = task();
+    assertFalse(service.persist("user", task, "ProcurementEvent", "1", "new"));
+    assertTrue(entity.getRerunRequested());
+
+    assertTrue(service.markComplete(task, "done"));
+    assertEquals("new", entity.getData());
+    assertEquals(Task.SCHEDULED, entity.getStatus());
+    assertFalse(entity.getRerunRequested());
+
+    assertFalse(service.markComplete(task, "done again"));
+    assertEquals(Task.COMPLETED, entity.getStatus());
+  }
+
+  @Test
+  void testDuplicateNamesReuseTheNewestRow() {
+    var newest = entity(Task.SCHEDULED, "old");
+    var older = entity(Task.COMPLETED, "older");
+    older.setId(1L);
+    when(taskRepo.findByNameOrderByIdDesc(NAME)).thenReturn(List.of(newest, older));
+
+    var task = task();
+    assertFalse(service.persist("user", task, "ProcurementEvent", "1", "new"));
+
+    assertEquals("new", newest.getData());
+    assertEquals("older", older.getData());
+  }
+
+  @Test
+  void testTaskAbortedWhileRunningStaysAborted() {
+    var entity = entity(Task.ABORTED, "old");
+    entity.setRerunRequested(true);
+    when(taskRepo.findForUpdateById(entity.getId())).thenReturn(Optional.of(entity));
+    var task = task();
+    task.setId(entity.getId());
+
+    assertFalse(service.markComplete(task, "done"));
+    assertEquals(Task.ABORTED, entity.getStatus());
+    assertFalse(entity.getRerunRequested());
+
+    assertEquals(TaskEntityService.NOT_RETRIED,
+        service.markRetry(task, "failed", Instant.now().plusSeconds(60)));
+    assertEquals(Task.ABORTED, entity.getStatus());
+    assertEquals(Task.FAILED, entity.getHistory().get(0).getStatus());
+  }
+
+  private static Task task() {
+    return new Task("user", RUNNER, String.class.getCanonicalName(), "new");
+  }
+
+  private static TaskEntity entity(char status, String data) {
+    var history = new TaskHistoryEntity();
+    history.setStatus(Task.INFLIGHT);
+    history.setTimestamps(Timestamps.createTimestamps("user"));
+    var entity = new TaskEntity();
+    entity.setId(2L);
+    entity.setName(NAME);
+    entity.setStatus(status);
+    entity.setData(data);
+    entity.setAttempts(1);
+    entity.setTimestamps(Timestamps.createTimestamps("user"));
+    entity.setHistory(new ArrayList<>(List.of(history)));
+    return entity;
+  }
+}
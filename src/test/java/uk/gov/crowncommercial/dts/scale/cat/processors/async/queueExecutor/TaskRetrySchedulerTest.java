@@ -0,0 +1,78 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+class TaskRetrySchedulerTest {
+
+  private final QueuedAsyncExecutor asyncExecutor = mock(QueuedAsyncExecutor.class);
+  private final TaskRepo taskRepo = mock(TaskRepo.class);
+  private final TaskRetryScheduler scheduler = new TaskRetryScheduler(asyncExecutor, taskRepo);
+
+  @AfterEach
+  void shutdown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  void testRetryIsDispatchedOnceDue() {
+    var task = task();
+    when(taskRepo.findById(task.getId())).thenReturn(Optional.of(entity(Task.SCHEDULED, 2)));
+    when(asyncExecutor.dispatch(task)).thenReturn(true);
+
+    scheduler.schedule(task, Instant.now().plusMillis(50), 2);
+
+    verify(asyncExecutor, timeout(1000)).dispatch(task);
+    assertFalse(scheduler.cancel(task.getId()));
+  }
+
+  @Test
+  void testCancelledRetryIsNotDispatched() {
+    var task = task();
+    when(taskRepo.findById(task.getId())).thenReturn(Optional.of(entity(Task.SCHEDULED, 2)));
+
+    scheduler.schedule(task, Instant.now().plusMillis(100), 2);
+    assertTrue(scheduler.cancel(task.getId()));
+
+    verify(asyncExecutor, after(300).never()).dispatch(task);
+  }
+
+  @Test
+  void testRetryOfRequeuedTaskIsDropped() {
+    var task = task();
+    // re-queued elsewhere: the attempt count was reset
+    when(taskRepo.findById(task.getId())).thenReturn(Optional.of(entity(Task.SCHEDULED, 0)));
+
+    scheduler.schedule(task, Instant.now(), 2);
+
+    verify(taskRepo, timeout(1000)).findById(task.getId());
+    verify(asyncExecutor, after(200).never()).dispatch(task);
+  }
+
+  private static Task task() {
+    var task = new Task("user", "JaggaerSupplierPush", String.class.getCanonicalName(), "data");
+    task.setId(7L);
+    return task;
+  }
+
+  private static TaskEntity entity(char status, int attempts) {
+    var entity = new TaskEntity();
+    entity.setId(7L);
+    entity.setStatus(status);
+    entity.setAttempts(attempts);
+    return entity;
+  }
+}
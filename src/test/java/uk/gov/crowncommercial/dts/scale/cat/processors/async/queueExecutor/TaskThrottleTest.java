@@ -0,0 +1,113 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.AsyncConsumer;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
+
+class TaskThrottleTest {
+
+  private final ApplicationContext ctx = mock(ApplicationContext.class);
+
+  @Test
+  void testDispatchOrderByLaneThenSubmission() {
+    var low = runnable("low", TaskPriority.LOW);
+    var normal1 = runnable("normal", TaskPriority.NORMAL);
+    var high = runnable("high", TaskPriority.HIGH);
+    var normal2 = runnable("normal", TaskPriority.NORMAL);
+
+    var queue = new BoundedPriorityBlockingQueue<Runnable>(4, RunnableTask.DISPATCH_ORDER);
+    queue.add(low);
+    queue.add(normal1);
+    queue.add(high);
+    queue.add(normal2);
+
+    assertSame(high, queue.poll());
+    assertSame(normal1, queue.poll());
+    assertSame(normal2, queue.poll());
+    assertSame(low, queue.poll());
+  }
+
+  @Test
+  void testDispatchQueueIsBounded() throws Exception {
+    var queue = new BoundedPriorityBlockingQueue<Runnable>(2, RunnableTask.DISPATCH_ORDER);
+    var high = runnable("high", TaskPriority.HIGH);
+
+    assertTrue(queue.offer(runnable("low", TaskPriority.LOW)));
+    assertTrue(queue.offer(runnable("normal", TaskPriority.NORMAL)));
+    assertFalse(queue.offer(high));
+    assertFalse(queue.offer(high, 10, TimeUnit.MILLISECONDS));
+    assertEquals(0, queue.remainingCapacity());
+
+    queue.poll();
+    assertTrue(queue.offer(high));
+    assertSame(high, queue.poll());
+  }
+
+  @Test
+  void testConcurrencyLimit() {
+    AsyncConsumer<?> consumer = mock(AsyncConsumer.class);
+    when(consumer.getMaxConcurrency()).thenReturn(1);
+    when(ctx.getBean("limited", AsyncConsumer.class)).thenReturn(consumer);
+    var throttle = new TaskThrottle(mock(ThreadPoolTaskExecutor.class), ctx);
+    var task = new Task("principal", "limited", null, null);
+
+    assertTrue(throttle.tryAcquire(task));
+    assertFalse(throttle.tryAcquire(task));
+    throttle.release(task);
+    assertTrue(throttle.tryAcquire(task));
+    throttle.shutdown();
+  }
+
+  @Test
+  void testParkedTaskIsResumedWhenAPermitIsReturned() {
+    AsyncConsumer<?> consumer = mock(AsyncConsumer.class);
+    when(consumer.getMaxConcurrency()).thenReturn(1);
+    when(ctx.getBean("limited", AsyncConsumer.class)).thenReturn(consumer);
+    var executor = mock(ThreadPoolTaskExecutor.class);
+    var throttle = new TaskThrottle(executor, ctx);
+    var running = new Task("principal", "limited", null, null);
+    var waiting = runnable("limited", TaskPriority.NORMAL);
+
+    assertTrue(throttle.tryAcquire(running));
+    assertFalse(throttle.tryAcquire(waiting.getTask()));
+    throttle.defer(waiting);
+
+    assertEquals(1, throttle.getParkedCount("limited"));
+    verify(executor, after(200).never()).execute(waiting);
+    throttle.release(running);
+    verify(executor, timeout(1000)).execute(waiting);
+    assertEquals(0, throttle.getParkedCount("limited"));
+    throttle.shutdown();
+  }
+
+  @Test
+  void testNoLimitsDeclared() {
+    AsyncConsumer<?> consumer = mock(AsyncConsumer.class);
+    when(ctx.getBean("unlimited", AsyncConsumer.class)).thenReturn(consumer);
+    var throttle = new TaskThrottle(mock(ThreadPoolTaskExecutor.class), ctx);
+    var task = new Task("principal", "unlimited", null, null);
+
+    assertTrue(throttle.tryAcquire(task));
+    assertTrue(throttle.tryAcquire(task));
+    throttle.shutdown();
+  }
+
+  private RunnableTask runnable(String runner, TaskPriority priority) {
+    var task = new Task("principal", runner, null, null);
+    task.setPriority(priority);
+    return new RunnableTask(task, ctx);
+  }
+}
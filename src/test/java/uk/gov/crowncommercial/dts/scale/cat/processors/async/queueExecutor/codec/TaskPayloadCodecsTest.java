@@ -0,0 +1,76 @@
+package uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
+
+class TaskPayloadCodecsTest {
+
+  private final ExperimentalFlagsConfig flags = new ExperimentalFlagsConfig();
+  private final TaskPayloadCodecs codecs =
+      new TaskPayloadCodecs(List.of(new JsonPayloadCodec(), new SmilePayloadCodec()), flags);
+
+  @Test
+  void testSmallPayloadIsPlainJson() {
+    var data = new HashMap<>(Map.of("eventId", 1));
+    var payload = codecs.encode(data);
+
+    assertEquals("{\"eventId\":1}", payload);
+    assertEquals(data, codecs.decode(payload, HashMap.class.getCanonicalName()));
+  }
+
+  @Test
+  void testLargePayloadIsCompressed() {
+    var suppliers = new ArrayList<String>();
+    for (int i = 0; i < 2000; i++) {
+      suppliers.add("supplier-" + i);
+    }
+    var data = new HashMap<String, Object>(Map.of("suppliers", suppliers));
+    var payload = codecs.encode(data);
+
+    assertTrue(payload.startsWith(SmilePayloadCodec.NAME + ":"));
+    assertTrue(payload.length() < new JsonPayloadCodec().encode(data).length());
+    assertEquals(data, codecs.decode(payload, HashMap.class.getCanonicalName()));
+  }
+
+  @Test
+  void testLargePayloadIsSerialisedOnce() {
+    var data = new CountingData();
+    var payload = codecs.encode(data);
+
+    assertTrue(payload.startsWith(SmilePayloadCodec.NAME + ":"));
+    assertEquals(1, data.reads);
+    assertEquals(Map.of("value", data.value),
+        codecs.decode(payload, HashMap.class.getCanonicalName()));
+  }
+
+  @Test
+  void testJsonCodecConfigured() {
+    flags.setAsyncTaskPayloadCodec(JsonPayloadCodec.NAME);
+    var data = new HashMap<String, Object>(Map.of("data", "x".repeat(10_000)));
+
+    assertTrue(codecs.encode(data).startsWith("{"));
+  }
+
+  @Test
+  void testUnknownDataClass() {
+    assertThrows(IllegalArgumentException.class, () -> codecs.decode("{}", "uk.gov.Unknown"));
+  }
+
+  static class CountingData {
+    private final String value = "x".repeat(10_000);
+    private int reads;
+
+    public String getValue() {
+      reads++;
+      return value;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package uk.gov.crowncommercial.dts.scale.cat.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.test.context.ContextConfiguration;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.Timestamps;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskHistoryEntity;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.TaskPriority;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.Task;
+
+/**
+ * Archives tasks on an embedded database whose archive tables have drifted from the hot ones, as
+ * columns were added to both over time
+ */
+@DataJpaTest(properties = {"spring.jpa.database=HSQL", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@ContextConfiguration(classes = TaskRepoTest.Config.class)
+class TaskRepoTest {
+
+  @Configuration
+  @EnableAutoConfiguration
+  @EnableJpaRepositories(basePackageClasses = TaskRepo.class,
+      includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE,
+          classes = {TaskRepo.class, TaskHistoryRepo.class}))
+  static class Config {
+
+    @Bean
+    PersistenceManagedTypes persistenceManagedTypes() {
+      return PersistenceManagedTypes.of(TaskEntity.class.getName(),
+          TaskHistoryEntity.class.getName());
+    }
+  }
+
+  @Autowired
+  private TaskRepo taskRepo;
+
+  @Autowired
+  private TaskHistoryRepo taskHistoryRepo;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void createArchiveTables() {
+    jdbcTemplate.execute("CREATE TABLE tasks_archive AS (SELECT * FROM tasks) WITH NO DATA");
+    jdbcTemplate.execute(
+        "CREATE TABLE task_history_archive AS (SELECT * FROM task_history) WITH NO DATA");
+    // added to the archive after the hot table, so it is last, and a column only the archive has
+    jdbcTemplate.execute("ALTER TABLE tasks_archive DROP COLUMN task_priority");
+    jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN task_priority varchar(255)");
+    jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN archived_note varchar(255)");
+    jdbcTemplate.execute("ALTER TABLE task_history_archive DROP COLUMN task_attempt");
+    jdbcTemplate.execute("ALTER TABLE task_history_archive ADD COLUMN task_attempt integer");
+  }
+
+  @Test
+  void testFinishedTaskIsArchived() {
+    var task = task();
+    var taskIds = List.of(task.getId());
+
+    taskRepo.archiveByIdIn(taskIds);
+    taskHistoryRepo.archiveByTaskIdIn(taskIds);
+    taskHistoryRepo.deleteByTaskIdIn(taskIds);
+    taskRepo.deleteByIdIn(taskIds);
+    entityManager.clear();
+
+    assertEquals(0, taskRepo.count());
+    assertEquals(0, taskHistoryRepo.count());
+    var archived = jdbcTemplate.queryForMap(
+        "SELECT task_name, task_status, task_priority, task_attempts FROM tasks_archive");
+    assertEquals("ProcurementEvent1JaggaerSupplierPush", archived.get("task_name"));
+    // char columns come back padded on HSQLDB
+    assertEquals("C", archived.get("task_status").toString().strip());
+    assertEquals("LOW", archived.get("task_priority"));
+    assertEquals(2, archived.get("task_attempts"));
+    var history = jdbcTemplate.queryForMap(
+        "SELECT task_id, task_history_status, task_attempt FROM task_history_archive");
+    assertEquals(task.getId(), ((Number) history.get("task_id")).longValue());
+    assertEquals("C", history.get("task_history_status").toString().strip());
+    assertEquals(2, history.get("task_attempt"));
+  }
+
+  private TaskEntity task() {
+    var entity = TaskEntity.builder().name("ProcurementEvent1JaggaerSupplierPush")
+        .recordType("ProcurementEvent").recordId("1").principal("user")
+        .taskExecutor("JaggaerSupplierPush").priority(TaskPriority.LOW)
+        .dataClass(String.class.getCanonicalName()).data("data").scheduledOn(Instant.now())
+        .tobeExecutedAt(Instant.now()).status(Task.COMPLETED).attempts(2).node("node")
+        .timestamps(Timestamps.createTimestamps("user")).history(new ArrayList<>()).build();
+    var history = TaskHistoryEntity.builder().taskEntity(entity).status(Task.COMPLETED)
+        .attempt(2).node("node").scheduledOn(Instant.now()).executedOn(Instant.now())
+        .timestamps(Timestamps.createTimestamps("user")).build();
+    entity.getHistory().add(history);
+    entity = entityManager.persistAndFlush(entity);
+    return entity;
+  }
+}
@@ -35,6 +35,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Supplier;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.SuppliersList;
 import uk.gov.crowncommercial.dts.scale.cat.repo.BuyerUserDetailsRepo;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 
 /**
  *
@@ -116,6 +117,9 @@ class AwardServiceTest {
   @MockBean
   private DocumentTemplateResourceService documentTemplateResourceService;
 
+  @MockBean
+  private OcdsRecordSnapshotService ocdsRecordSnapshotService;
+
 
   @BeforeAll
   static void beforeClass() {
@@ -43,6 +43,7 @@ import uk.gov.crowncommercial.dts.scale.cat.repo.*;
 import uk.gov.crowncommercial.dts.scale.cat.repo.readonly.CalculationBaseRepo;
 import uk.gov.crowncommercial.dts.scale.cat.service.ca.AssessmentService;
 import uk.gov.crowncommercial.dts.scale.cat.service.documentupload.DocumentUploadService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
 /**
@@ -217,6 +218,18 @@ class ProcurementEventServiceTest {
   @MockBean
   private QuestionAndAnswerRepo questionAndAnswerRepo;
 
+  @MockBean
+  private SearchSyncStateRepo searchSyncStateRepo;
+
+  @MockBean
+  private OpportunityCsvRowRepo opportunityCsvRowRepo;
+
+  @MockBean
+  private OcdsRecordSnapshotRepo ocdsRecordSnapshotRepo;
+
+  @MockBean
+  private OcdsRecordSnapshotService ocdsRecordSnapshotService;
+
   private final CreateEvent createEvent = new CreateEvent();
 
   @Test
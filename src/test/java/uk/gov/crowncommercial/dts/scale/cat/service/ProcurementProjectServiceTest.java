@@ -2,10 +2,13 @@ package uk.gov.crowncommercial.dts.scale.cat.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,19 +26,29 @@ import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.modelmapper.ModelMapper;
+import org.opensearch.search.aggregations.Aggregations;
+import org.opensearch.search.aggregations.bucket.terms.Terms;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.AggregationsContainer;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.web.reactive.function.client.WebClient;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import uk.gov.crowncommercial.dts.scale.cat.config.AgreementsServiceAPIConfig;
 import uk.gov.crowncommercial.dts.scale.cat.config.ApplicationFlagsConfig;
 import uk.gov.crowncommercial.dts.scale.cat.config.JaggaerAPIConfig;
+import uk.gov.crowncommercial.dts.scale.cat.config.OpportunityExportConfig;
+import uk.gov.crowncommercial.dts.scale.cat.config.paas.AWSS3Credentials;
 import uk.gov.crowncommercial.dts.scale.cat.config.paas.AWSS3Service;
 import uk.gov.crowncommercial.dts.scale.cat.exception.JaggaerApplicationException;
 import uk.gov.crowncommercial.dts.scale.cat.exception.ResourceNotFoundException;
@@ -68,8 +81,11 @@ import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.SSOCodeData;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.SubUsers.SubUser;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.Tender;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.User;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
 import uk.gov.crowncommercial.dts.scale.cat.repo.search.SearchProjectRepo;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
+import uk.gov.crowncommercial.dts.scale.cat.service.scheduler.ProjectsCSVGenerationScheduledTask;
 import uk.gov.crowncommercial.dts.scale.cat.util.TestUtils;
 import uk.gov.crowncommercial.dts.scale.cat.utils.TendersAPIModelUtils;
 
@@ -164,6 +180,12 @@ class ProcurementProjectServiceTest {
   @MockBean
   private SearchProjectRepo searchProjectRepo;
 
+  @MockBean
+  private OpportunityExportConfig opportunityExportConfig;
+
+  @MockBean
+  private OcdsRecordSnapshotService ocdsRecordSnapshotService;
+
   @BeforeAll
   static void beforeAll() {
     AGREEMENT_DETAILS.setAgreementId(CA_NUMBER);
@@ -584,4 +606,52 @@ class ProcurementProjectServiceTest {
 
   }
 
+  @Test
+  void testProjectSearchFiltersOnAgreement() {
+    var terms = mock(Terms.class);
+    when(terms.getName()).thenReturn("count_lot");
+    var aggregations = mock(AggregationsContainer.class);
+    when(aggregations.aggregations()).thenReturn(new Aggregations(List.of(terms)));
+    SearchHits<ProcurementEventSearch> hits = mock(SearchHits.class);
+    when(hits.getAggregations()).thenReturn(aggregations);
+    ArgumentCaptor<List<Query>> queries = ArgumentCaptor.forClass(List.class);
+    when(elasticsearchOperations.multiSearch(queries.capture(), eq(ProcurementEventSearch.class),
+        any(IndexCoordinates.class))).thenReturn(List.of(hits, hits));
+
+    procurementProjectService.getProjectSummery(CA_NUMBER, null, null, 1, 20, null, null);
+
+    for (Query query : queries.getValue()) {
+      var filter = ((NativeSearchQuery) query).getQuery().toString();
+      assertTrue(filter.contains("\"agreementId\" : {") && filter.contains("\"value\" : \"" + CA_NUMBER + "\""),
+          filter);
+      // documents of the index built before the split by agreement have no agreementId yet
+      assertTrue(filter.contains("\"must_not\"") && filter.contains("\"exists\""), filter);
+    }
+  }
+
+  @Test
+  void testProjectsDataDefaultsToFirstAgreement() {
+    var dos6 = new OpportunityExportConfig.Agreement();
+    dos6.setId("RM1043.8");
+    dos6.setCsvKey("oppertunities/data.csv");
+    var other = new OpportunityExportConfig.Agreement();
+    other.setId(CA_NUMBER);
+    when(opportunityExportConfig.getAgreements()).thenReturn(List.of(dos6, other));
+    when(opportunityExportConfig.getAgreement(CA_NUMBER)).thenReturn(Optional.of(other));
+    when(tendersS3Service.getCredentials())
+        .thenReturn(AWSS3Credentials.builder().bucketName("bucket").build());
+    var metadata = new ObjectMetadata();
+    when(tendersS3Client.getObjectMetadata(any(String.class), any(String.class))).thenReturn(metadata);
+
+    assertEquals(metadata, procurementProjectService.getProjectsDataMetadata(null));
+    verify(tendersS3Client).getObjectMetadata("bucket", "oppertunities/data.csv");
+
+    procurementProjectService.getProjectsDataMetadata(CA_NUMBER);
+    verify(tendersS3Client).getObjectMetadata("bucket",
+        ProjectsCSVGenerationScheduledTask.getCsvKey(other));
+
+    assertThrows(ResourceNotFoundException.class,
+        () -> procurementProjectService.getProjectsDataMetadata("RM0000"));
+  }
+
 }
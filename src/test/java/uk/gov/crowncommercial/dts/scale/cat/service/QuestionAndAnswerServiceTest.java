@@ -32,6 +32,7 @@ import uk.gov.crowncommercial.dts.scale.cat.model.generated.QandA;
 import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.SubUsers.SubUser;
 import uk.gov.crowncommercial.dts.scale.cat.repo.QuestionAndAnswerRepo;
 import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsRecordSnapshotService;
 
 /**
  * QuestionAndAnswerService Service layer tests
@@ -80,6 +81,9 @@ class QuestionAndAnswerServiceTest {
   @MockBean
   private AgreementsService agreementsService;
 
+  @MockBean
+  private OcdsRecordSnapshotService ocdsRecordSnapshotService;
+
   @Test
   void testCreateQuestionAndAnswer() throws Exception {
     // Stub some objects
@@ -98,6 +98,15 @@ class RetryableTendersDBDelegateTest {
   @MockBean
   private QuestionAndAnswerRepo questionAndAnswerRepo;
 
+  @MockBean
+  private SearchSyncStateRepo searchSyncStateRepo;
+
+  @MockBean
+  private OpportunityCsvRowRepo opportunityCsvRowRepo;
+
+  @MockBean
+  private OcdsRecordSnapshotRepo ocdsRecordSnapshotRepo;
+
   @Test
   void testRetrySuccess() {
     var transactionException = new CannotCreateTransactionException("DB problem");
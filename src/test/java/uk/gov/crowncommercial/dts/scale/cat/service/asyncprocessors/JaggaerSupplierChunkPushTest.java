@@ -0,0 +1,32 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.asyncprocessors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.crowncommercial.dts.scale.cat.config.ExperimentalFlagsConfig;
+import uk.gov.crowncommercial.dts.scale.cat.processors.SupplierStoreFactory;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+
+class JaggaerSupplierChunkPushTest {
+
+  private final RetryableTendersDBDelegate dbDelegate = mock(RetryableTendersDBDelegate.class);
+  private final SupplierStoreFactory factory = mock(SupplierStoreFactory.class);
+  private final JaggaerSupplierPushTracker pushTracker = mock(JaggaerSupplierPushTracker.class);
+  private final JaggaerSupplierChunkPush chunkPush = new JaggaerSupplierChunkPush(dbDelegate,
+      factory, mock(ExperimentalFlagsConfig.class), pushTracker);
+
+  @Test
+  void testChunkOfSupersededPushIsNotStored() {
+    var data = new JaggaerSupplierChunkData(1, 12, "1700000000000", 2, 3, List.of());
+    when(pushTracker.isSuperseded(data)).thenReturn(true);
+
+    assertEquals("Skipped chunk 3/3, push 1700000000000 was superseded",
+        chunkPush.accept("user", data));
+
+    verifyNoInteractions(dbDelegate, factory);
+  }
+}
@@ -0,0 +1,95 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.asyncprocessors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ca.TaskEntity;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.Task;
+import uk.gov.crowncommercial.dts.scale.cat.processors.async.queueExecutor.TaskEntityService;
+import uk.gov.crowncommercial.dts.scale.cat.repo.TaskRepo;
+
+class JaggaerSupplierPushTrackerTest {
+
+  private static final Integer EVENT_ID = 12;
+  private static final String PUSH_ID = "1700000000000";
+  private static final Instant SCHEDULED_ON = Instant.parse("2023-11-14T22:13:20Z");
+
+  private final TaskRepo taskRepo = mock(TaskRepo.class);
+  private final TaskEntityService taskEntityService = mock(TaskEntityService.class);
+  private final JaggaerSupplierPushTracker tracker =
+      new JaggaerSupplierPushTracker(taskRepo, taskEntityService);
+
+  @Test
+  void testOutcomeRecordedOnceAllChunksAreDone() {
+    chunks(chunk(1, Task.COMPLETED), chunk(2, Task.COMPLETED));
+
+    tracker.chunkFinished(data());
+
+    verify(taskEntityService).recordOutcome("ProcurementEvent12JaggaerSupplierPush", SCHEDULED_ON,
+        Task.COMPLETED, "Pushed all 3 chunks of push " + PUSH_ID + " to Jaggaer");
+  }
+
+  @Test
+  void testFailedChunksFailThePush() {
+    chunks(chunk(1, Task.FAILED), chunk(2, Task.COMPLETED));
+
+    tracker.chunkFinished(data());
+
+    verify(taskEntityService).recordOutcome("ProcurementEvent12JaggaerSupplierPush", SCHEDULED_ON,
+        Task.FAILED, "Push " + PUSH_ID + " to Jaggaer incomplete, chunks 2 of 3 failed");
+  }
+
+  @Test
+  void testNothingRecordedWhileChunksArePending() {
+    chunks(chunk(1, Task.COMPLETED), chunk(2, Task.SCHEDULED));
+
+    tracker.chunkFinished(data());
+
+    verify(taskEntityService, never()).recordOutcome(anyString(), any(), anyChar(), anyString());
+  }
+
+  @Test
+  void testEarlierPushesAreCancelled() {
+    tracker.cancelEarlierPushes(EVENT_ID, PUSH_ID);
+
+    verify(taskEntityService).abortUnfinished("JaggaerSupplierChunkPush", "ProcurementEvent", "12#",
+        "Aborted. Superseded by push " + PUSH_ID);
+  }
+
+  @Test
+  void testChunkOfSupersededPushIsDetected() {
+    when(taskRepo.findByRecordTypeAndRecordIdOrderByIdDesc("ProcurementEvent", "12#" + PUSH_ID + "#2"))
+        .thenReturn(List.of(chunk(2, Task.ABORTED)), List.of(chunk(2, Task.INFLIGHT)));
+
+    assertTrue(tracker.isSuperseded(data()));
+    assertFalse(tracker.isSuperseded(data()));
+  }
+
+  private void chunks(TaskEntity... chunks) {
+    when(taskRepo.findByTaskExecutorAndRecordTypeAndRecordIdStartingWith("JaggaerSupplierChunkPush",
+        "ProcurementEvent", "12#" + PUSH_ID + "#")).thenReturn(List.of(chunks));
+  }
+
+  private static JaggaerSupplierChunkData data() {
+    return new JaggaerSupplierChunkData(1, EVENT_ID, PUSH_ID, 2, 3, List.of());
+  }
+
+  private static TaskEntity chunk(int chunkIndex, char status) {
+    var entity = new TaskEntity();
+    entity.setRecordId(JaggaerSupplierPushTracker.getChunkRecordId(EVENT_ID, PUSH_ID, chunkIndex));
+    entity.setTaskExecutor("JaggaerSupplierChunkPush");
+    entity.setStatus(status);
+    entity.setScheduledOn(SCHEDULED_ON.plusMillis(chunkIndex - 1));
+    return entity;
+  }
+}
@@ -0,0 +1,78 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import uk.gov.crowncommercial.dts.scale.cat.exception.OcdsTimeoutException;
+
+class OcdsExecutorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final OcdsExecutor ocdsExecutor =
+      new OcdsExecutor(registry, 2, 2, Duration.ofMillis(200));
+
+  @AfterEach
+  void shutdown() {
+    ocdsExecutor.shutdown();
+  }
+
+  @Test
+  void testSectionsStillRunningAtTheDeadlineAreCancelled() throws Exception {
+    var started = new CountDownLatch(1);
+    var interrupted = new CountDownLatch(1);
+    var done = ocdsExecutor.runAsync(() -> {
+    });
+    var blocked = ocdsExecutor.runAsync(() -> block(started, interrupted));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    List<CompletableFuture<?>> futures = List.of(done, blocked);
+    assertThrows(OcdsTimeoutException.class,
+        () -> ocdsExecutor.await(futures, System.nanoTime()));
+
+    assertTrue(blocked.isCancelled());
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    assertEquals(1, timerCount("timeout"));
+  }
+
+  @Test
+  void testFailedSectionCancelsItsSiblings() throws Exception {
+    var started = new CountDownLatch(1);
+    var interrupted = new CountDownLatch(1);
+    var blocked = ocdsExecutor.runAsync(() -> block(started, interrupted));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    var failed = ocdsExecutor.runAsync(() -> {
+      throw new IllegalArgumentException("Unknown event");
+    });
+
+    List<CompletableFuture<?>> futures = List.of(blocked, failed);
+    var ex = assertThrows(IllegalArgumentException.class,
+        () -> ocdsExecutor.await(futures, System.nanoTime()));
+
+    assertEquals("Unknown event", ex.getMessage());
+    assertTrue(blocked.isCancelled());
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    assertEquals(1, timerCount("error"));
+  }
+
+  private static void block(final CountDownLatch started, final CountDownLatch interrupted) {
+    started.countDown();
+    try {
+      Thread.sleep(Duration.ofMinutes(1).toMillis());
+    } catch (InterruptedException e) {
+      interrupted.countDown();
+    }
+  }
+
+  private long timerCount(final String outcome) {
+    return registry.get(OcdsExecutor.PREFIX + ".record").tag("outcome", outcome).timer().count();
+  }
+}
@@ -0,0 +1,96 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OrganisationMapping;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+import uk.gov.crowncommercial.dts.scale.cat.service.ConclaveService;
+import uk.gov.crowncommercial.dts.scale.cat.service.JaggaerService;
+import uk.gov.crowncommercial.dts.scale.cat.service.ocds.OcdsFetchPlan.RfxComponents;
+
+class OcdsFetchPlanTest {
+
+  private static final String EXTERNAL_EVENT_ID = "rfq_0001";
+
+  private final JaggaerService jaggaerService = mock(JaggaerService.class);
+  private final RetryableTendersDBDelegate tendersDBDelegate =
+      mock(RetryableTendersDBDelegate.class);
+  private final OcdsFetchPlan plan =
+      new OcdsFetchPlan(jaggaerService, tendersDBDelegate, mock(ConclaveService.class));
+
+  private final ProcurementEvent event =
+      ProcurementEvent.builder().externalEventId(EXTERNAL_EVENT_ID).build();
+
+  @Test
+  void testPlannedRfxIsReused() {
+    var suppliers = new ExportRfxResponse();
+    plan.addRfx(EXTERNAL_EVENT_ID, RfxComponents.SUPPLIERS_OFFERS_AND_RESPONSE_COUNTERS,
+        CompletableFuture.completedFuture(suppliers));
+
+    assertSame(suppliers, plan.getRfx(event, RfxComponents.SUPPLIERS));
+    verify(jaggaerService, never()).getRfxWithSuppliers(EXTERNAL_EVENT_ID);
+  }
+
+  @Test
+  void testRfxIsWidenedWhenMoreComponentsAreNeeded() {
+    var suppliers = new ExportRfxResponse();
+    var counters = new ExportRfxResponse();
+    plan.addRfx(EXTERNAL_EVENT_ID, RfxComponents.SUPPLIERS,
+        CompletableFuture.completedFuture(suppliers));
+    when(jaggaerService.getRfxWithSuppliersOffersAndResponseCounters(EXTERNAL_EVENT_ID))
+        .thenReturn(counters);
+
+    assertSame(counters,
+        plan.getRfx(event, RfxComponents.SUPPLIERS_OFFERS_AND_RESPONSE_COUNTERS));
+    // the wider export replaces the narrower one for the sections asking after it
+    assertSame(counters, plan.getRfx(event, RfxComponents.SUPPLIERS));
+    assertSame(counters, plan.getFetchedRfx(event).orElseThrow());
+    verify(jaggaerService, times(1))
+        .getRfxWithSuppliersOffersAndResponseCounters(EXTERNAL_EVENT_ID);
+    verify(jaggaerService, never()).getRfxWithSuppliers(EXTERNAL_EVENT_ID);
+  }
+
+  @Test
+  void testConcurrentOrganisationMappingLookupsShareOneQuery() throws Exception {
+    var mapping = OrganisationMapping.builder().externalOrganisationId(1).build();
+    var querying = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(tendersDBDelegate.findOrganisationMappingByExternalOrganisationIdIn(anySet()))
+        .thenAnswer(invocation -> {
+          querying.countDown();
+          release.await(5, TimeUnit.SECONDS);
+          return Set.of(mapping);
+        });
+
+    var first = CompletableFuture.supplyAsync(() -> plan.getOrganisationMappings(Set.of(1, 2)));
+    assertTrue(querying.await(5, TimeUnit.SECONDS));
+    var waiting = new CountDownLatch(1);
+    var second = CompletableFuture.supplyAsync(() -> {
+      waiting.countDown();
+      return plan.getOrganisationMappings(Set.of(1, 2));
+    });
+    assertTrue(waiting.await(5, TimeUnit.SECONDS));
+    release.countDown();
+
+    assertEquals(Map.of(1, mapping), first.get(5, TimeUnit.SECONDS));
+    assertEquals(Map.of(1, mapping), second.get(5, TimeUnit.SECONDS));
+    verify(tendersDBDelegate, times(1))
+        .findOrganisationMappingByExternalOrganisationIdIn(Set.of(1, 2));
+  }
+}
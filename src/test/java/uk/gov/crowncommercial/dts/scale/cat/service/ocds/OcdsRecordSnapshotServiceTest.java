@@ -0,0 +1,145 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.ocds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshot;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.OcdsRecordSnapshotKey;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementEvent;
+import uk.gov.crowncommercial.dts.scale.cat.model.entity.ProcurementProject;
+import uk.gov.crowncommercial.dts.scale.cat.model.generated.ProjectPackage;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.ExportRfxResponse;
+import uk.gov.crowncommercial.dts.scale.cat.model.jaggaer.RfxSetting;
+import uk.gov.crowncommercial.dts.scale.cat.repo.RetryableTendersDBDelegate;
+
+class OcdsRecordSnapshotServiceTest {
+
+  private static final Integer PROJECT_ID = 1;
+  private static final Instant UPDATED_AT = Instant.parse("2023-07-01T10:00:00Z");
+  private static final List<String> SECTIONS = List.of("tender", "awards");
+  private static final OcdsRecordSnapshotKey KEY =
+      new OcdsRecordSnapshotKey(PROJECT_ID, "awards,tender");
+  private static final String PACKAGE_JSON = "{}";
+
+  private final RetryableTendersDBDelegate dbDelegate = mock(RetryableTendersDBDelegate.class);
+  private final ObjectMapper objectMapper = mock(ObjectMapper.class);
+  private final OcdsRecordSnapshotService service =
+      new OcdsRecordSnapshotService(dbDelegate, objectMapper);
+
+  private final ProcurementEvent event = ProcurementEvent.builder().id(10)
+      .externalEventId("rfq_0001").publishDate(UPDATED_AT).updatedAt(UPDATED_AT).build();
+  private final ProcurementProject project = ProcurementProject.builder().id(PROJECT_ID)
+      .updatedAt(UPDATED_AT.minusSeconds(60)).procurementEvents(Set.of(event)).build();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ReflectionTestUtils.setField(service, "enabled", true);
+    ReflectionTestUtils.setField(service, "maxAge", Duration.ofDays(7));
+    when(objectMapper.writeValueAsString(any())).thenReturn(PACKAGE_JSON);
+    when(objectMapper.readValue(anyString(), eq(ProjectPackage.class)))
+        .thenReturn(new ProjectPackage());
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void testCurrentSnapshotIsServed() {
+    when(dbDelegate.findOcdsRecordSnapshot(KEY))
+        .thenReturn(Optional.of(snapshot(UPDATED_AT, Instant.now())));
+
+    assertTrue(service.find(project, SECTIONS).isPresent());
+  }
+
+  @Test
+  void testSnapshotIsNotServedOnceTheProjectHasChanged() {
+    when(dbDelegate.findOcdsRecordSnapshot(KEY))
+        .thenReturn(Optional.of(snapshot(UPDATED_AT.minusSeconds(1), Instant.now())));
+
+    assertTrue(service.find(project, SECTIONS).isEmpty());
+  }
+
+  @Test
+  void testSnapshotIsNotServedPastTheMaxAge() {
+    when(dbDelegate.findOcdsRecordSnapshot(KEY)).thenReturn(
+        Optional.of(snapshot(UPDATED_AT, Instant.now().minus(Duration.ofDays(8)))));
+
+    assertTrue(service.find(project, SECTIONS).isEmpty());
+  }
+
+  @Test
+  void testPackageOfFinalRfxIsSaved() {
+    service.save(query(JaggaerStatus.AWARDED, true), new ProjectPackage());
+
+    verify(dbDelegate).save(any(OcdsRecordSnapshot.class));
+  }
+
+  @Test
+  void testPackageOfOpenRfxIsNotSaved() {
+    service.save(query(JaggaerStatus.RUNNING, true), new ProjectPackage());
+
+    verify(dbDelegate, never()).save(any(OcdsRecordSnapshot.class));
+  }
+
+  @Test
+  void testPackageIsNotSavedWhenTheRfxWasNotFetched() {
+    service.save(query(JaggaerStatus.AWARDED, false), new ProjectPackage());
+
+    verify(dbDelegate, never()).save(any(OcdsRecordSnapshot.class));
+  }
+
+  @Test
+  void testSnapshotsAreDroppedAgainAfterCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    service.invalidate(PROJECT_ID);
+
+    verify(dbDelegate, times(1)).deleteOcdsRecordSnapshots(PROJECT_ID);
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(1, synchronizations.size());
+    synchronizations.forEach(TransactionSynchronization::afterCommit);
+    verify(dbDelegate, times(2)).deleteOcdsRecordSnapshots(PROJECT_ID);
+  }
+
+  private ProjectQuery query(final JaggaerStatus status, final boolean fetched) {
+    var rfx = new ExportRfxResponse();
+    rfx.setRfxSetting(RfxSetting.builder().statusCode(status.getValue()).build());
+    var fetchPlan = mock(OcdsFetchPlan.class);
+    when(fetchPlan.getFetchedRfx(event)).thenReturn(fetched ? Optional.of(rfx) : Optional.empty());
+    var query = mock(ProjectQuery.class);
+    when(query.getProject()).thenReturn(project);
+    when(query.getSections()).thenReturn(SECTIONS);
+    when(query.getFetchPlan()).thenReturn(fetchPlan);
+    return query;
+  }
+
+  private static OcdsRecordSnapshot snapshot(final Instant changeMarker, final Instant createdAt) {
+    return OcdsRecordSnapshot.builder().key(KEY).changeMarker(changeMarker)
+        .projectPackage(PACKAGE_JSON).createdAt(createdAt).build();
+  }
+}
@@ -0,0 +1,115 @@
+package uk.gov.crowncommercial.dts.scale.cat.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.gov.crowncommercial.dts.scale.cat.model.search.ProcurementEventSearch;
+
+class LocalProjectSearchIndexTest {
+
+  private static final String AGREEMENT_ID = "RM1234";
+
+  @TempDir
+  Path path;
+
+  private final LocalProjectSearchIndex index = new LocalProjectSearchIndex(new ObjectMapper());
+
+  @BeforeEach
+  void open() throws Exception {
+    ReflectionTestUtils.setField(index, "path", path);
+    index.open();
+  }
+
+  @AfterEach
+  void close() throws Exception {
+    index.close();
+  }
+
+  @Test
+  void testPagesAreSortedByLastUpdated() {
+    index.replaceAgreement(AGREEMENT_ID, events(5));
+
+    var first = index.search(AGREEMENT_ID, null, null, null, 1, 2, null);
+    var second = index.search(AGREEMENT_ID, null, null, null, 2, 2, null);
+
+    assertEquals(5, first.getTotalHits());
+    assertEquals(List.of(5, 4), projectIds(first));
+    assertEquals(List.of(3, 2), projectIds(second));
+    assertEquals(List.of(new ProjectSearchPage.LotCount("1", 3, "Lot 1"),
+        new ProjectSearchPage.LotCount("2", 2, "Lot 2")),
+        first.getLots().stream().sorted((a, b) -> a.getLot().compareTo(b.getLot())).toList());
+  }
+
+  @Test
+  void testCursorContinuesAfterTheLastHit() {
+    index.replaceAgreement(AGREEMENT_ID, events(5));
+
+    var first = index.search(AGREEMENT_ID, null, null, null, 1, 2, null);
+    var next = index.search(AGREEMENT_ID, null, null, null, 1, 2, first.getLastSortValues());
+
+    assertEquals(List.of(3, 2), projectIds(next));
+  }
+
+  @Test
+  void testReplaceAgreementDropsRemovedProjects() {
+    index.replaceAgreement(AGREEMENT_ID, events(5));
+    index.replaceAgreement(AGREEMENT_ID, events(2));
+
+    assertTrue(index.hasAgreement(AGREEMENT_ID));
+    assertFalse(index.hasAgreement("RM5678"));
+    assertEquals(List.of(2, 1),
+        projectIds(index.search(AGREEMENT_ID, null, null, null, 1, 10, null)));
+  }
+
+  @Test
+  void testKeywordAndLotFilterTheResults() {
+    index.replaceAgreement(AGREEMENT_ID, events(5));
+
+    var page = index.search(AGREEMENT_ID, "projct", "1", null, 1, 10, null);
+
+    assertEquals(List.of(5, 3, 1), projectIds(page));
+    assertEquals(Set.of(2, 4), index.findProjectIdsNotIn(AGREEMENT_ID, Set.of("active")));
+  }
+
+  @Test
+  void testPageSizeIsCapped() {
+    index.replaceAgreement(AGREEMENT_ID, events(LocalProjectSearchIndex.MAX_PAGE_SIZE + 1));
+
+    var page = index.search(AGREEMENT_ID, null, null, null, 1, Integer.MAX_VALUE, null);
+
+    assertEquals(LocalProjectSearchIndex.MAX_PAGE_SIZE, page.getHits().size());
+  }
+
+  @Test
+  void testPagesBeyondTheResultWindowAreRejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> index.search(AGREEMENT_ID, null, null, null, Integer.MAX_VALUE, 100, null));
+  }
+
+  private static List<ProcurementEventSearch> events(int count) {
+    return IntStream.rangeClosed(1, count)
+        .mapToObj(projectId -> ProcurementEventSearch.builder().id(AGREEMENT_ID + "-" + projectId)
+            .projectId(projectId).projectName("Project " + projectId).agreementId(AGREEMENT_ID)
+            .lot(String.valueOf(2 - projectId % 2)).lotDescription("Lot " + (2 - projectId % 2))
+            .status("Open")
+            .subStatus(projectId % 2 == 0 ? "closed" : "active").lastUpdated(1000L + projectId)
+            .build())
+        .toList();
+  }
+
+  private static List<Integer> projectIds(ProjectSearchPage page) {
+    return page.getHits().stream().map(ProcurementEventSearch::getProjectId).toList();
+  }
+}
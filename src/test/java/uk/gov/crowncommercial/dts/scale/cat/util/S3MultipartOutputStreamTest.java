@@ -0,0 +1,110 @@
+package uk.gov.crowncommercial.dts.scale.cat.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import uk.gov.crowncommercial.dts.scale.cat.utils.S3MultipartOutputStream;
+
+class S3MultipartOutputStreamTest {
+
+  private static final int PART_SIZE = S3MultipartOutputStream.MIN_PART_SIZE;
+  private static final String BUCKET = "bucket";
+  private static final String KEY = "/Oppertunity/opportunity_data.csv";
+
+  private AmazonS3 s3Client;
+  private List<byte[]> uploadedParts;
+
+  @BeforeEach
+  void setUp() {
+    s3Client = mock(AmazonS3.class);
+    uploadedParts = new ArrayList<>();
+    var initiateResult = new InitiateMultipartUploadResult();
+    initiateResult.setUploadId("upload-1");
+    when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class)))
+        .thenReturn(initiateResult);
+    when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+      UploadPartRequest request = invocation.getArgument(0);
+      uploadedParts.add(request.getInputStream().readAllBytes());
+      var result = new UploadPartResult();
+      result.setPartNumber(request.getPartNumber());
+      result.setETag("etag-" + request.getPartNumber());
+      return result;
+    });
+  }
+
+  @Test
+  void testSmallContentIsSentAsSinglePut() throws IOException {
+    var upload = new S3MultipartOutputStream(s3Client, BUCKET, KEY, new ObjectMetadata(), PART_SIZE);
+    upload.write("ID,Opportunity".getBytes());
+    upload.close();
+
+    var captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+    verify(s3Client).putObject(captor.capture());
+    assertEquals(14, captor.getValue().getMetadata().getContentLength());
+    verify(s3Client, never()).initiateMultipartUpload(any());
+  }
+
+  @Test
+  void testLargeContentIsUploadedInParts() throws IOException {
+    var content = new byte[PART_SIZE * 2 + 10];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    var upload = new S3MultipartOutputStream(s3Client, BUCKET, KEY, new ObjectMetadata(), PART_SIZE);
+    upload.write(content, 0, 100);
+    upload.write(content, 100, content.length - 100);
+    upload.close();
+
+    var captor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    verify(s3Client).completeMultipartUpload(captor.capture());
+    assertEquals(3, captor.getValue().getPartETags().size());
+    assertEquals(3, uploadedParts.size());
+    assertEquals(PART_SIZE, uploadedParts.get(0).length);
+    assertEquals(10, uploadedParts.get(2).length);
+
+    var joined = new ByteArrayOutputStream();
+    for (byte[] part : uploadedParts) {
+      joined.write(part);
+    }
+    assertArrayEquals(content, joined.toByteArray());
+  }
+
+  @Test
+  void testAbortDiscardsUploadedParts() throws IOException {
+    var upload = new S3MultipartOutputStream(s3Client, BUCKET, KEY, new ObjectMetadata(), PART_SIZE);
+    upload.write(new byte[PART_SIZE + 1]);
+    upload.abort();
+    upload.close();
+
+    verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3Client, never()).completeMultipartUpload(any());
+    assertThrows(IOException.class, () -> upload.write(1));
+  }
+
+  @Test
+  void testPartSizeBelowS3MinimumIsRejected() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new S3MultipartOutputStream(s3Client, BUCKET, KEY, new ObjectMetadata(), 1024));
+  }
+}